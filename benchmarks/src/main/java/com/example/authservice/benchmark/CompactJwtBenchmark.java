@@ -0,0 +1,99 @@
+package com.example.authservice.benchmark;
+
+import com.example.authservice.loadtest.InMemoryStores;
+import com.example.authservice.utils.CompactJwtEncoder;
+import com.example.authservice.utils.JwtKeyManager;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Выпуск access токена: прежний путь через JwtBuilder (Claims, Date, UUID, join ролей) против CompactJwtEncoder
+// на том же ключе JwtKeyManager. parseCompact - проверка компактного токена обычным jjwt-парсером.
+// Размер токенов печатается при старте; аллокации на операцию показывает профайлер gc:
+// mvn -f benchmarks/pom.xml package exec:exec -Dbench.args="CompactJwtBenchmark -prof gc"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompactJwtBenchmark {
+
+    private static final String SECRET = "your-very-long-secret-key-with-at-least-64-characters-1234567890abcdef";
+    private static final long EXPIRATION_SECONDS = 900;
+
+    @Param({"ES256", "HS256", "HS512"})
+    public String algorithm;
+
+    private JwtKeyManager keyManager;
+    private CompactJwtEncoder encoder;
+    private JwtParser parser;
+    private List<GrantedAuthority> authorities;
+    private String compactToken;
+
+    @Setup
+    public void setup() {
+        InMemoryStores stores = new InMemoryStores();
+        keyManager = new JwtKeyManager(stores.inMemorySigningKeyStore(),
+                Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), algorithm, 24, 3, "", 900, 60_000);
+        keyManager.init();
+        encoder = new CompactJwtEncoder(keyManager);
+        parser = Jwts.parserBuilder().setSigningKeyResolver(keyManager).build();
+        authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+        compactToken = compact();
+        System.out.printf("%n%s: jjwt %d байт, compact %d байт%n", algorithm, jjwtBuilder().length(), compactToken.length());
+    }
+
+    @Benchmark
+    public String jjwtBuilder() {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + EXPIRATION_SECONDS * 1000L);
+        String roles = authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
+
+        Claims claims = Jwts.claims().setSubject("benchmark-user");
+        claims.put("roles", roles);
+        claims.put("gen", 0L);
+        JwtBuilder builder = Jwts.builder()
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(now)
+                .setExpiration(expiryDate);
+        return keyManager.signWithCurrentKey(builder).compact();
+    }
+
+    @Benchmark
+    public String compact() {
+        long now = System.currentTimeMillis() / 1000;
+        return encoder.encode("benchmark-user", CompactJwtEncoder.newTokenId(), authorities, 0L,
+                now, now + EXPIRATION_SECONDS);
+    }
+
+    @Benchmark
+    public Claims parseCompact() {
+        return parser.parseClaimsJws(compactToken).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CompactJwtBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.authservice.benchmark;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.loadtest.InMemoryStores;
+import com.example.authservice.security.CustomUserDetails;
+import com.example.authservice.security.TokenGenerationService;
+import com.example.authservice.service.TokenRegistry;
+import com.example.authservice.utils.CompactJwtEncoder;
+import com.example.authservice.utils.JwtKeyManager;
+import com.example.authservice.utils.JwtTokenProvider;
+import com.example.authservice.utils.JwtVerifier;
+import com.example.authservice.utils.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Полный путь JwtTokenProvider: claims, jti, подпись текущим ключом JwtKeyManager и проверка через JwtVerifier.
+// parse - разбор и проверка подписи без кеша, verifyCached - повторная проверка того же токена
+// Запуск: mvn -f benchmarks/pom.xml package exec:exec -Dbench.args="JwtTokenProviderBenchmark"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "your-very-long-secret-key-with-at-least-64-characters-1234567890abcdef";
+
+    @Param({"ES256", "HS512"})
+    public String algorithm;
+
+    private JwtTokenProvider tokenProvider;
+    private JwtParser parser;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setup() {
+        InMemoryStores stores = new InMemoryStores();
+        JwtKeyManager keyManager = new JwtKeyManager(stores.inMemorySigningKeyStore(),
+                Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), algorithm, 24, 3, "", 900, 60_000);
+        keyManager.init();
+        parser = Jwts.parserBuilder().setSigningKeyResolver(keyManager).build();
+
+        tokenProvider = new JwtTokenProvider(new TokenRegistry(stores.inMemoryTokenStore(), 256, 10_000),
+                keyManager, new JwtVerifier(parser, 10_000),
+                new TokenGenerationService(stores.inMemoryTokenGenerationStore(), 10_000, 300),
+                new CompactJwtEncoder(keyManager));
+        Field expiration = ReflectionUtils.findField(JwtTokenProvider.class, "jwtExpiration");
+        ReflectionUtils.makeAccessible(expiration);
+        ReflectionUtils.setField(expiration, tokenProvider, 900);
+
+        User user = new User("benchmark-user", "{bcrypt}hash");
+        user.setRoles(List.of("ROLE_USER", "ROLE_ADMIN"));
+        CustomUserDetails principal = new CustomUserDetails(user);
+        authentication = UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+        token = tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return tokenProvider.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtTokenProviderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
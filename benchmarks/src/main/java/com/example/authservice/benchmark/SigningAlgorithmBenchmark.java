@@ -0,0 +1,115 @@
+package com.example.authservice.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// jjwt 0.11.5 не поддерживает EdDSA, поэтому Ed25519 меряется через JDK Signature
+// на той же строке header.payload, что подписывает jjwt
+// Запуск: mvn -f benchmarks/pom.xml package exec:exec -Dbench.args="SigningAlgorithmBenchmark"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SigningAlgorithmBenchmark {
+
+    private static final String SECRET = "your-very-long-secret-key-with-at-least-64-characters-1234567890abcdef";
+
+    private Claims claims;
+
+    private javax.crypto.SecretKey hmacKey;
+    private JwtParser hs512Parser;
+    private String hs512Token;
+
+    private KeyPair ecKeys;
+    private JwtParser es256Parser;
+    private String es256Token;
+
+    private KeyPair edKeys;
+    private Signature ed25519;
+    private byte[] signingInput;
+    private byte[] ed25519Signature;
+
+    @Setup
+    public void setup() throws Exception {
+        Date now = new Date();
+        claims = Jwts.claims().setSubject("benchmark-user");
+        claims.put("roles", "ROLE_USER");
+        claims.setIssuedAt(now);
+        claims.setExpiration(new Date(now.getTime() + TimeUnit.HOURS.toMillis(1)));
+
+        hmacKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        hs512Parser = Jwts.parserBuilder().setSigningKey(hmacKey).build();
+        hs512Token = signHs512();
+
+        ecKeys = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        es256Parser = Jwts.parserBuilder().setSigningKey(ecKeys.getPublic()).build();
+        es256Token = signEs256();
+
+        edKeys = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        ed25519 = Signature.getInstance("Ed25519");
+        String header = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"alg\":\"EdDSA\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = hs512Token.split("\\.")[1];
+        signingInput = (header + "." + payload).getBytes(StandardCharsets.US_ASCII);
+        ed25519Signature = signEd25519();
+    }
+
+    @Benchmark
+    public String signHs512() {
+        return Jwts.builder().setClaims(claims).signWith(hmacKey, SignatureAlgorithm.HS512).compact();
+    }
+
+    @Benchmark
+    public Claims verifyHs512() {
+        return hs512Parser.parseClaimsJws(hs512Token).getBody();
+    }
+
+    @Benchmark
+    public String signEs256() {
+        return Jwts.builder().setClaims(claims).signWith(ecKeys.getPrivate(), SignatureAlgorithm.ES256).compact();
+    }
+
+    @Benchmark
+    public Claims verifyEs256() {
+        return es256Parser.parseClaimsJws(es256Token).getBody();
+    }
+
+    @Benchmark
+    public byte[] signEd25519() throws Exception {
+        ed25519.initSign(edKeys.getPrivate());
+        ed25519.update(signingInput);
+        return ed25519.sign();
+    }
+
+    @Benchmark
+    public boolean verifyEd25519() throws Exception {
+        ed25519.initVerify(edKeys.getPublic());
+        ed25519.update(signingInput);
+        return ed25519.verify(ed25519Signature);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SigningAlgorithmBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
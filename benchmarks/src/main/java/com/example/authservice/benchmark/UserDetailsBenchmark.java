@@ -0,0 +1,58 @@
+package com.example.authservice.benchmark;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.security.CustomUserDetails;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Построение CustomUserDetails из User при промахе кеша CustomUserDetailsService
+// Запуск: mvn -f benchmarks/pom.xml package exec:exec -Dbench.args="UserDetailsBenchmark"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDetailsBenchmark {
+
+    @Param({"1", "4"})
+    public int roles;
+
+    private User user;
+
+    @Setup
+    public void setup() {
+        user = new User("benchmark-user", "{bcrypt}$2a$10$abcdefghijklmnopqrstuv");
+        user.setEmail("benchmark-user@example.com");
+        List<String> userRoles = new ArrayList<>();
+        for (int i = 0; i < roles; i++) {
+            userRoles.add(i == 0 ? "ROLE_USER" : "ROLE_EXTRA_" + i);
+        }
+        user.setRoles(userRoles);
+    }
+
+    @Benchmark
+    public CustomUserDetails construct() {
+        return new CustomUserDetails(user);
+    }
+
+    @Benchmark
+    public void constructAndReadAuthorities(Blackhole blackhole) {
+        new CustomUserDetails(user).getAuthorities().forEach(blackhole::consume);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserDetailsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
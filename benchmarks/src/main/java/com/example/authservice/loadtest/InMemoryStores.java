@@ -0,0 +1,161 @@
+package com.example.authservice.loadtest;
+
+import com.example.authservice.repository.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+// Заменяет Redis-хранилища in-process реализациями с искусственной задержкой round trip
+@Configuration
+public class InMemoryStores {
+
+    @Value("${loadtest.store-latency-ms:0}")
+    private long latencyMs;
+
+    @Bean
+    @Primary
+    public TokenStore inMemoryTokenStore() {
+        Map<String, String> values = new ConcurrentHashMap<>();
+        return new TokenStore() {
+            @Override
+            public void apply(List<TokenOperation> operations) {
+                roundTrip();
+                for (TokenOperation op : operations) {
+                    if (op.type() == TokenOperation.Type.REGISTER) {
+                        values.put(op.tokenId(), op.username());
+                    } else {
+                        values.remove(op.tokenId());
+                    }
+                }
+            }
+
+            @Override
+            public List<String> multiGet(List<String> tokenIds) {
+                roundTrip();
+                List<String> result = new ArrayList<>(tokenIds.size());
+                for (String tokenId : tokenIds) {
+                    result.add(values.get(tokenId));
+                }
+                return result;
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public RevokedTokenStore inMemoryRevokedTokenStore() {
+        Map<String, Instant> revoked = new ConcurrentHashMap<>();
+        return new RevokedTokenStore() {
+            @Override
+            public void add(String tokenId, Instant expiresAt) {
+                roundTrip();
+                revoked.put(tokenId, expiresAt);
+            }
+
+            @Override
+            public Set<String> findActive(Instant now) {
+                roundTrip();
+                revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+                return new HashSet<>(revoked.keySet());
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public RefreshTokenStore inMemoryRefreshTokenStore() {
+        Map<String, String[]> sessions = new ConcurrentHashMap<>();
+        return new RefreshTokenStore() {
+            @Override
+            public void create(String familyId, String tokenHash, String username, long generation, Duration ttl) {
+                roundTrip();
+                sessions.put(familyId, new String[]{tokenHash, username, String.valueOf(generation)});
+            }
+
+            @Override
+            public RefreshRotation rotate(String familyId, String presentedHash, String newHash, Duration ttl) {
+                roundTrip();
+                RefreshRotation[] result = new RefreshRotation[1];
+                sessions.computeIfPresent(familyId, (id, session) -> {
+                    if (!session[0].equals(presentedHash)) {
+                        result[0] = new RefreshRotation(RefreshRotation.Status.REUSED, null, 0);
+                        return null;
+                    }
+                    result[0] = new RefreshRotation(RefreshRotation.Status.ROTATED, session[1], Long.parseLong(session[2]));
+                    return new String[]{newHash, session[1], session[2]};
+                });
+                return result[0] != null ? result[0] : new RefreshRotation(RefreshRotation.Status.INVALID, null, 0);
+            }
+
+            @Override
+            public void delete(String familyId) {
+                roundTrip();
+                sessions.remove(familyId);
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public TokenGenerationStore inMemoryTokenGenerationStore() {
+        Map<String, Long> generations = new ConcurrentHashMap<>();
+        return new TokenGenerationStore() {
+            @Override
+            public long get(String username) {
+                roundTrip();
+                return generations.getOrDefault(username, 0L);
+            }
+
+            @Override
+            public long increment(String username) {
+                roundTrip();
+                return generations.merge(username, 1L, Long::sum);
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public SigningKeyStore inMemorySigningKeyStore() {
+        Map<String, StoredSigningKey> keys = new ConcurrentHashMap<>();
+        return new SigningKeyStore() {
+            @Override
+            public List<StoredSigningKey> findAll() {
+                return new ArrayList<>(keys.values());
+            }
+
+            @Override
+            public void add(StoredSigningKey key) {
+                keys.put(key.kid(), key);
+            }
+
+            @Override
+            public void remove(String kid) {
+                keys.remove(kid);
+            }
+
+            @Override
+            public boolean tryLockRotation(Duration ttl) {
+                return true;
+            }
+
+            @Override
+            public Instant recordEs256Since(Instant now) {
+                return now;
+            }
+        };
+    }
+
+    private void roundTrip() {
+        if (latencyMs > 0) {
+            LockSupport.parkNanos(Duration.ofMillis(latencyMs).toNanos());
+        }
+    }
+}
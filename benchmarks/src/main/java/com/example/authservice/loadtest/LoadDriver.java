@@ -0,0 +1,307 @@
+package com.example.authservice.loadtest;
+
+import com.example.authservice.AuthServiceApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Замкнутый цикл: concurrency воркеров без пауз выполняют смесь login/register/getById.
+// Во встроенном режиме сервис поднимается в этом же JVM: Postgres заменён H2 в режиме PostgreSQL,
+// Redis - InMemoryStores с задержкой loadtest.store-latency-ms. С --target=http://host:port
+// нагрузка идёт на уже запущенный экземпляр (например, с профилем reactive).
+// Выбор операций детерминирован (--seed), поэтому прогоны разных коммитов сравнимы:
+// гистограммы пишутся в <out>/<label>/<mode>-<op>.hgrm, сводка дописывается в <out>/summary.csv
+// Запуск: mvn -f benchmarks/pom.xml package exec:exec -Dbench.main=com.example.authservice.loadtest.LoadDriver
+//         -Dbench.args="--modes=platform,virtual --users=200 --concurrency=256 --seconds=20"
+public class LoadDriver {
+
+    private enum Operation {
+        LOGIN, REGISTER, GET_BY_ID
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = intArg(args, "users", 200);
+        int concurrency = intArg(args, "concurrency", 256);
+        int seconds = intArg(args, "seconds", 20);
+        int warmupSeconds = intArg(args, "warmup", 5);
+        long seed = intArg(args, "seed", 42);
+        Map<Operation, Integer> mix = parseMix(stringArg(args, "mix", "login:80,register:10,getById:10"));
+        String target = stringArg(args, "target", null);
+        List<String> modes = List.of(stringArg(args, "modes", target != null ? "external" : "platform,virtual").split(","));
+        Path out = Path.of(stringArg(args, "out", "target/loadtest"));
+        String label = stringArg(args, "label", gitRevision());
+
+        Workload workload = new Workload(users, concurrency, mix, seed);
+        List<Result> results = new ArrayList<>();
+        for (String mode : modes) {
+            if (target != null) {
+                results.add(runAgainst(target, mode, workload, warmupSeconds, seconds));
+            } else {
+                results.add(runEmbedded(mode, workload, warmupSeconds, seconds));
+            }
+        }
+
+        System.out.printf("%n%-10s %-10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "mode", "operation", "ops/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Result result : results) {
+            result.print();
+            result.write(out, label);
+        }
+        System.out.printf("%nМетка: %s, гистограммы: %s%n", label, out.resolve(label).toAbsolutePath());
+    }
+
+    private static Result runEmbedded(String mode, Workload workload, int warmupSeconds, int seconds) throws Exception {
+        boolean virtualThreads = switch (mode) {
+            case "platform" -> false;
+            case "virtual" -> true;
+            default -> throw new IllegalArgumentException("Встроенный режим поддерживает platform и virtual: " + mode);
+        };
+        // Отдельная БД на режим, чтобы id засеянных пользователей были одинаковыми (1..users)
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AuthServiceApplication.class, InMemoryStores.class)
+                .profiles("loadtest")
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+                .run();
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            return runAgainst("http://localhost:" + port, mode, workload, warmupSeconds, seconds);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result runAgainst(String baseUrl, String mode, Workload workload, int warmupSeconds, int seconds)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Уже существующие пользователи (409) не мешают: нужны только их логины и id
+        for (int i = 0; i < workload.users(); i++) {
+            post(client, baseUrl + "/auth/register", registerBody("user" + i));
+        }
+        // Прогрев JIT, пулов соединений и кеша пользователей
+        drive(client, baseUrl, mode + "-warmup", workload, warmupSeconds);
+        return new Result(mode, drive(client, baseUrl, mode, workload, seconds), seconds);
+    }
+
+    private static Map<Operation, OperationStats> drive(HttpClient client, String baseUrl, String runId,
+                                                        Workload workload, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Map<Operation, OperationStats>>> workers = new ArrayList<>(workload.concurrency());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < workload.concurrency(); w++) {
+                int worker = w;
+                workers.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(workload.seed() + worker);
+                    Map<Operation, OperationStats> stats = OperationStats.empty();
+                    long sequence = 0;
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = workload.next(random);
+                        int user = random.nextInt(workload.users());
+                        long start = System.nanoTime();
+                        int status = switch (operation) {
+                            case LOGIN -> post(client, baseUrl + "/auth/login",
+                                    "{\"username\":\"user" + user + "\",\"password\":\"password\"}");
+                            case REGISTER -> post(client, baseUrl + "/auth/register",
+                                    registerBody("load-" + runId + "-" + worker + "-" + sequence++));
+                            case GET_BY_ID -> get(client, baseUrl + "/auth/getById?userId=" + (user + 1));
+                        };
+                        stats.get(operation).record(System.nanoTime() - start, status);
+                    }
+                    return stats;
+                }));
+            }
+        }
+
+        Map<Operation, OperationStats> total = OperationStats.empty();
+        for (Future<Map<Operation, OperationStats>> worker : workers) {
+            worker.get().forEach((operation, stats) -> total.get(operation).add(stats));
+        }
+        return total;
+    }
+
+    private static String registerBody(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"password\","
+                + "\"email\":\"" + username + "@example.com\"}";
+    }
+
+    private static int post(HttpClient client, String url, String body) {
+        return send(client, HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private static int get(HttpClient client, String url) {
+        return send(client, HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build());
+    }
+
+    private static int send(HttpClient client, HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] weight = part.split(":");
+            Operation operation = switch (weight[0]) {
+                case "login" -> Operation.LOGIN;
+                case "register" -> Operation.REGISTER;
+                case "getById" -> Operation.GET_BY_ID;
+                default -> throw new IllegalArgumentException("Неизвестная операция: " + weight[0]);
+            };
+            weights.put(operation, Integer.parseInt(weight[1]));
+        }
+        return weights;
+    }
+
+    private static String gitRevision() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            String revision = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return process.waitFor() == 0 && !revision.isEmpty() ? revision : "local";
+        } catch (IOException e) {
+            return "local";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "local";
+        }
+    }
+
+    private static int intArg(String[] args, String name, int defaultValue) {
+        String value = stringArg(args, name, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static String stringArg(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+
+    private record Workload(int users, int concurrency, Map<Operation, Integer> mix, long seed) {
+
+        Operation next(SplittableRandom random) {
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            int roll = random.nextInt(total);
+            for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("Пустая смесь операций");
+        }
+    }
+
+    // Задержки в микросекундах; ошибка - любой статус, кроме 2xx (409 на register тоже ошибка)
+    private static final class OperationStats {
+        final Histogram latencies = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        long errors;
+
+        static Map<Operation, OperationStats> empty() {
+            Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                stats.put(operation, new OperationStats());
+            }
+            return stats;
+        }
+
+        void record(long nanos, int status) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), latencies.getHighestTrackableValue()));
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        void add(OperationStats other) {
+            latencies.add(other.latencies);
+            errors += other.errors;
+        }
+    }
+
+    private record Result(String mode, Map<Operation, OperationStats> stats, int seconds) {
+
+        void print() {
+            stats.forEach((operation, s) -> {
+                if (s.latencies.getTotalCount() == 0) {
+                    return;
+                }
+                System.out.printf("%-10s %-10s %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", mode, operation,
+                        (double) s.latencies.getTotalCount() / seconds, s.errors,
+                        millis(s.latencies.getValueAtPercentile(50)),
+                        millis(s.latencies.getValueAtPercentile(90)),
+                        millis(s.latencies.getValueAtPercentile(99)),
+                        millis(s.latencies.getValueAtPercentile(99.9)),
+                        millis(s.latencies.getMaxValue()));
+            });
+        }
+
+        void write(Path out, String label) throws IOException {
+            Path dir = out.resolve(label);
+            Files.createDirectories(dir);
+            Path summary = out.resolve("summary.csv");
+            if (!Files.exists(summary)) {
+                Files.writeString(summary, "label,mode,operation,ops_per_sec,errors,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+            }
+
+            StringBuilder rows = new StringBuilder();
+            for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+                Histogram latencies = entry.getValue().latencies;
+                if (latencies.getTotalCount() == 0) {
+                    continue;
+                }
+                String name = entry.getKey().name().toLowerCase(Locale.ROOT);
+                try (PrintStream hgrm = new PrintStream(Files.newOutputStream(dir.resolve(mode + "-" + name + ".hgrm")),
+                        false, StandardCharsets.UTF_8)) {
+                    latencies.outputPercentileDistribution(hgrm, 1000.0);
+                }
+                rows.append(String.format(Locale.ROOT, "%s,%s,%s,%.1f,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", label, mode, name,
+                        (double) latencies.getTotalCount() / seconds, entry.getValue().errors,
+                        millis(latencies.getValueAtPercentile(50)),
+                        millis(latencies.getValueAtPercentile(90)),
+                        millis(latencies.getValueAtPercentile(99)),
+                        millis(latencies.getValueAtPercentile(99.9)),
+                        millis(latencies.getMaxValue())));
+            }
+            Files.writeString(summary, rows, StandardOpenOption.APPEND);
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
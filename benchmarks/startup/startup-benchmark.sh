@@ -0,0 +1,53 @@
+#!/usr/bin/env sh
+# Время до готовности (/actuator/health = UP) и RSS после старта для JVM (AOT + CDS) и native-образа.
+# Postgres, Redis и Kafka должны быть доступны контейнеру; адреса передаются через переменные окружения:
+#   DB_URL=jdbc:postgresql://host.docker.internal:5432/ApiGatewayDB REDIS_HOST=host.docker.internal \
+#   KAFKA=host.docker.internal:9092 RUNS=5 benchmarks/startup/startup-benchmark.sh
+# Результаты дописываются в benchmarks/target/startup.csv с меткой коммита.
+set -eu
+
+cd "$(dirname "$0")/../.."
+RUNS="${RUNS:-5}"
+PORT="${PORT:-18083}"
+OUT=benchmarks/target/startup.csv
+LABEL="$(git rev-parse --short HEAD 2>/dev/null || echo unknown)"
+
+mkdir -p benchmarks/target
+[ -f "$OUT" ] || echo "label,variant,run,ready_ms,rss_mib" > "$OUT"
+
+docker build -q -t auth-service:jvm --target jvm . > /dev/null
+docker build -q -t auth-service:native --target native . > /dev/null
+
+now_ms() {
+    date +%s%3N
+}
+
+for variant in jvm native; do
+    i=1
+    while [ "$i" -le "$RUNS" ]; do
+        start=$(now_ms)
+        id=$(docker run -d --rm -p "$PORT:8083" \
+            -e SPRING_DATASOURCE_URL="${DB_URL:-jdbc:postgresql://host.docker.internal:5432/ApiGatewayDB}" \
+            -e SPRING_DATA_REDIS_HOST="${REDIS_HOST:-host.docker.internal}" \
+            -e SPRING_KAFKA_BOOTSTRAP_SERVERS="${KAFKA:-host.docker.internal:9092}" \
+            -e EUREKA_CLIENT_ENABLED=false \
+            "auth-service:$variant")
+
+        until curl -fs "http://localhost:$PORT/actuator/health" | grep -q '"UP"'; do
+            if [ $(( $(now_ms) - start )) -gt 120000 ]; then
+                echo "$variant: не поднялся за 120 с" >&2
+                docker logs "$id" | tail -20 >&2
+                docker stop "$id" > /dev/null
+                exit 1
+            fi
+            sleep 0.05
+        done
+        ready=$(( $(now_ms) - start ))
+
+        rss_kib=$(docker exec "$id" sh -c 'grep VmRSS /proc/1/status' | awk '{print $2}')
+        docker stop "$id" > /dev/null
+
+        echo "$LABEL,$variant,$i,$ready,$(( rss_kib / 1024 ))" | tee -a "$OUT"
+        i=$(( i + 1 ))
+    done
+done
@@ -1,11 +1,16 @@
 package com.example.authservice;
 
+import com.example.authservice.utils.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class AuthServiceApplication {
 
 	public static void main(String[] args) {
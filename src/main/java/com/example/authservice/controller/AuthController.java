@@ -1,31 +1,78 @@
 package com.example.authservice.controller;
 
 import com.example.authservice.entity.User;
+import com.example.authservice.exceptions.EmailAlreadyExistsException;
+import com.example.authservice.exceptions.InvalidRefreshTokenException;
+import com.example.authservice.exceptions.LoginRateLimitedException;
+import com.example.authservice.exceptions.LookupBatchTooLargeException;
+import com.example.authservice.exceptions.PasswordHashingUnavailableException;
+import com.example.authservice.exceptions.UserAlreadyExistsException;
 import com.example.authservice.payload.AuthResponse;
 import com.example.authservice.payload.LoginRequest;
+import com.example.authservice.payload.RefreshRequest;
+import com.example.authservice.payload.UserLookupRequest;
+import com.example.authservice.payload.UserLookupResponse;
 import com.example.authservice.repository.AuthRepository;
 import com.example.authservice.service.AuthService;
+import com.example.authservice.service.SessionService;
+import com.example.authservice.service.UserLookupService;
 import com.example.authservice.utils.JwtTokenProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
 @RestController
 @RequestMapping("/auth")
+@Profile("!reactive")
 public class AuthController {
 
     private final AuthService authService;
+    private final UserLookupService userLookupService;
+    private final SessionService sessionService;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, UserLookupService userLookupService,
+                          SessionService sessionService) {
         this.authService = authService;
+        this.userLookupService = userLookupService;
+        this.sessionService = sessionService;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
-        return ResponseEntity.ok(authService.authenticate(loginRequest.getUsername(), loginRequest.getPassword()));
+    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        return ResponseEntity.ok(authService.authenticate(loginRequest.getUsername(), loginRequest.getPassword(),
+                request.getRemoteAddr()));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@RequestBody RefreshRequest refreshRequest) {
+        return ResponseEntity.ok(authService.refresh(refreshRequest.getRefreshToken()));
+    }
+
+    @Operation(summary = "Выход: отзывает текущий access токен и, если передан, refresh токен сессии")
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String token,
+                                       @RequestBody(required = false) RefreshRequest refreshRequest) {
+        String refreshToken = refreshRequest != null ? refreshRequest.getRefreshToken() : null;
+        return sessionService.logout(token, refreshToken)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    @Operation(summary = "Выход на всех устройствах: все выданные пользователю токены перестают действовать")
+    @PostMapping("/logout/all")
+    public ResponseEntity<Void> logoutEverywhere(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String token) {
+        return sessionService.logoutEverywhere(token)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
 
     @PostMapping("/register")
@@ -50,6 +97,40 @@ public class AuthController {
         return ResponseEntity.ok(authService.getUserById(userId));
     }
 
+    @Operation(summary = "Пользователи по списку id и/или имён одним запросом")
+    @PostMapping("/lookup")
+    public ResponseEntity<UserLookupResponse> lookupUsers(@RequestBody UserLookupRequest request) {
+        return ResponseEntity.ok(userLookupService.lookup(request.getIds(), request.getUsernames()));
+    }
+
+    @ExceptionHandler(LookupBatchTooLargeException.class)
+    public ResponseEntity<?> handleLookupBatchTooLarge(LookupBatchTooLargeException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler({UserAlreadyExistsException.class, EmailAlreadyExistsException.class})
+    public ResponseEntity<?> handleUserConflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<?> handleInvalidRefreshToken(InvalidRefreshTokenException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(LoginRateLimitedException.class)
+    public ResponseEntity<?> handleLoginRateLimited(LoginRateLimitedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<?> handleHashingUnavailable(PasswordHashingUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
 
 //    @GetMapping("/me")
 //    public ResponseEntity<?> getCurrentUser(HttpServletRequest request) {
@@ -0,0 +1,67 @@
+package com.example.authservice.controller;
+
+import com.example.authservice.exceptions.BalanceNotFoundException;
+import com.example.authservice.exceptions.InsufficientFundsException;
+import com.example.authservice.payload.BalanceOperation;
+import com.example.authservice.payload.BalanceResponse;
+import com.example.authservice.service.BalanceService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/balances")
+@Profile("!reactive")
+public class BalanceController {
+
+    private final BalanceService balanceService;
+
+    public BalanceController(BalanceService balanceService) {
+        this.balanceService = balanceService;
+    }
+
+    @Operation(summary = "Текущий баланс пользователя")
+    @GetMapping("/{userId}")
+    public ResponseEntity<BalanceResponse> getBalance(@PathVariable Long userId) {
+        return ResponseEntity.ok(balanceService.getBalance(userId));
+    }
+
+    @Operation(summary = "Пополнить баланс")
+    @PostMapping("/{userId}/credit")
+    public ResponseEntity<BalanceResponse> credit(@PathVariable Long userId, @RequestBody BalanceOperation operation) {
+        return ResponseEntity.ok(balanceService.credit(userId, operation.amount(), operation.reference()));
+    }
+
+    @Operation(summary = "Списать с баланса")
+    @PostMapping("/{userId}/debit")
+    public ResponseEntity<BalanceResponse> debit(@PathVariable Long userId, @RequestBody BalanceOperation operation) {
+        return ResponseEntity.ok(balanceService.debit(userId, operation.amount(), operation.reference()));
+    }
+
+    @Operation(summary = "Пакетный расчёт: все операции применяются атомарно")
+    @PostMapping("/settle")
+    public ResponseEntity<Void> settle(@RequestBody List<BalanceOperation> operations) {
+        balanceService.settle(operations);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(BalanceNotFoundException.class)
+    public ResponseEntity<?> handleNotFound(BalanceNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    public ResponseEntity<?> handleInsufficientFunds(InsufficientFundsException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleInvalidAmount(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.authservice.controller;
+
+import com.example.authservice.utils.JwtKeyManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+
+@RestController
+@Profile("!reactive")
+public class JwksController {
+
+    private final JwtKeyManager jwtKeyManager;
+
+    public JwksController(JwtKeyManager jwtKeyManager) {
+        this.jwtKeyManager = jwtKeyManager;
+    }
+
+    // Набор меняется только при ротации, поэтому сервисы-потребители кешируют его и
+    // перезапрашивают с If-None-Match; при неизменном наборе отдаётся 304 без тела.
+    // Новый ключ публикуется раньше, чем им начинают подписывать, минимум на JWKS_MAX_AGE
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks(WebRequest request) {
+        String etag = jwtKeyManager.jwksEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(JwtKeyManager.JWKS_MAX_AGE).cachePublic())
+                .eTag(etag)
+                .body(jwtKeyManager.jwks());
+    }
+}
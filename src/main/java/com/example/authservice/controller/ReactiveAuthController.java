@@ -0,0 +1,82 @@
+package com.example.authservice.controller;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.exceptions.EmailAlreadyExistsException;
+import com.example.authservice.exceptions.LoginRateLimitedException;
+import com.example.authservice.exceptions.PasswordHashingUnavailableException;
+import com.example.authservice.exceptions.UserAlreadyExistsException;
+import com.example.authservice.payload.AuthResponse;
+import com.example.authservice.payload.LoginRequest;
+import com.example.authservice.payload.UserSummary;
+import com.example.authservice.service.ReactiveAuthService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+// Те же контракты /auth/login, /auth/register и /auth/getById, что у AuthController, на WebFlux
+@RestController
+@RequestMapping("/auth")
+@Profile("reactive")
+public class ReactiveAuthController {
+
+    private final ReactiveAuthService authService;
+
+    public ReactiveAuthController(ReactiveAuthService authService) {
+        this.authService = authService;
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> authenticateUser(@RequestBody LoginRequest loginRequest,
+                                                               ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String clientIp = remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : null;
+        return authService.authenticate(loginRequest.getUsername(), loginRequest.getPassword(), clientIp)
+                .map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthResponse>> registerUser(@RequestBody User user) {
+        return authService.createUser(user)
+                .map(newUser -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(AuthResponse.builder().username(newUser.getUsername()).build()));
+    }
+
+    @GetMapping("/getById")
+    public Mono<ResponseEntity<UserSummary>> getUser(@RequestParam Long userId) {
+        return authService.getUserById(userId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.ok().build());
+    }
+
+    @ExceptionHandler({UserAlreadyExistsException.class, EmailAlreadyExistsException.class})
+    public ResponseEntity<?> handleUserConflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<?> handleBadCredentials(AuthenticationException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    @ExceptionHandler(LoginRateLimitedException.class)
+    public ResponseEntity<?> handleLoginRateLimited(LoginRateLimitedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<?> handleHashingUnavailable(PasswordHashingUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.authservice.controller;
+
+import com.example.authservice.utils.JwtKeyManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@Profile("reactive")
+public class ReactiveJwksController {
+
+    private final JwtKeyManager jwtKeyManager;
+
+    public ReactiveJwksController(JwtKeyManager jwtKeyManager) {
+        this.jwtKeyManager = jwtKeyManager;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public Mono<ResponseEntity<Map<String, Object>>> getJwks(ServerWebExchange exchange) {
+        String etag = jwtKeyManager.jwksEtag();
+        if (exchange.checkNotModified(etag)) {
+            return Mono.empty();
+        }
+        return Mono.just(ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .eTag(etag)
+                .body(jwtKeyManager.jwks()));
+    }
+}
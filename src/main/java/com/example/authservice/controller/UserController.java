@@ -1,49 +1,75 @@
 package com.example.authservice.controller;
 
-import com.example.authservice.entity.User;
+import com.example.authservice.payload.UserPage;
 import com.example.authservice.service.AuthService;
+import com.example.authservice.service.SessionService;
+import com.example.authservice.service.UserImportService;
+import com.example.authservice.service.UserQueryService;
 import io.swagger.v3.oas.annotations.Operation;
-import org.springframework.http.HttpStatus;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
-import java.util.Map;
 
 
 @RestController
 @RequestMapping("/users")
+@Profile("!reactive")
 public class UserController {
 
+    private final UserQueryService userQueryService;
+    private final UserImportService userImportService;
     private final AuthService authService;
+    private final SessionService sessionService;
 
-    public UserController(AuthService authService) {
+    public UserController(UserQueryService userQueryService, UserImportService userImportService,
+                          AuthService authService, SessionService sessionService) {
+        this.userQueryService = userQueryService;
+        this.userImportService = userImportService;
         this.authService = authService;
+        this.sessionService = sessionService;
     }
 
     @Operation(summary = "Получить список всех пользователей")
     @GetMapping("/getAll")
-    public ResponseEntity<?> getUsers() {
-        try {
-//            authService.validateAdminToken(tokenHeader);
-            List<User> allUsers = authService.getAllUsers();
-            return ResponseEntity.ok(allUsers);
-        } catch (UsernameNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
-        } catch (RuntimeException e) {
-            if (e.getMessage().contains("Неверный формат токена") || e.getMessage().contains("Неверный JWT токен")) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
-            } else if (e.getMessage().contains("Доступ запрещен")) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
-            } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Внутренняя ошибка сервера"));
-            }
-        }
+    public ResponseEntity<StreamingResponseBody> getUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(userQueryService::writeAllUsers);
     }
 
+    @Operation(summary = "Получить страницу пользователей после указанного id")
+    @GetMapping("/page")
+    public ResponseEntity<UserPage> getUsersPage(@RequestParam(defaultValue = "0") long afterId,
+                                                 @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(userQueryService.getPage(afterId, size));
+    }
+
+    @Operation(summary = "Массовый импорт пользователей из NDJSON, результат по каждой строке возвращается потоком")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(InputStream body) {
+        return ResponseEntity.ok(out -> userImportService.importUsers(body, out));
+    }
 
+    @Operation(summary = "Заменить роли пользователя")
+    @PutMapping("/{id}/roles")
+    public ResponseEntity<Void> updateRoles(@PathVariable Long id, @RequestBody List<String> roles) {
+        return authService.updateRoles(id, roles)
+                .<ResponseEntity<Void>>map(user -> ResponseEntity.noContent().build())
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Отозвать все сессии пользователя")
+    @PostMapping("/{id}/sessions/revoke")
+    public ResponseEntity<Void> revokeAllSessions(@PathVariable Long id) {
+        return sessionService.revokeAllSessions(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
 
 }
@@ -0,0 +1,33 @@
+package com.example.authservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Журнал движений баланса, только вставка. Сумма user_balances.amount_minor равна сумме записей пользователя
+@Entity
+@Table(name = "balance_ledger", indexes = @Index(name = "ix_balance_ledger_user", columnList = "user_id"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Положительная - пополнение, отрицательная - списание
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
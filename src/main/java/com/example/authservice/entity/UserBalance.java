@@ -0,0 +1,27 @@
+package com.example.authservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Материализованный баланс из balance_ledger. Отдельная строка, чтобы списания и пополнения
+// не переписывали строку users, которую читает логин. Сумма - в копейках
+@Entity
+@Table(name = "user_balances")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+
+    // Растёт с каждым изменением: клиент может сравнить версии двух чтений
+    @Column(nullable = false)
+    private long version;
+}
@@ -0,0 +1,43 @@
+package com.example.authservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Строка transactional outbox: пишется в одной транзакции с изменением пользователя,
+// UserEventRelay публикует её в Kafka и удаляет. Данные пользователя хранятся в самой
+// строке, потому что к моменту публикации USER_DELETED пользователя в users уже нет
+@Entity
+@Table(name = "user_outbox")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserOutboxEvent {
+
+    public enum Type {
+        USER_CREATED, USER_DELETED, ROLES_CHANGED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String username;
+    private String email;
+
+    // Роли через запятую
+    private String roles;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,7 @@
+package com.example.authservice.exceptions;
+
+public class BalanceNotFoundException extends RuntimeException {
+    public BalanceNotFoundException(String s) {
+        super(s);
+    }
+}
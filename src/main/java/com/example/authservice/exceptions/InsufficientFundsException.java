@@ -0,0 +1,7 @@
+package com.example.authservice.exceptions;
+
+public class InsufficientFundsException extends RuntimeException {
+    public InsufficientFundsException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.authservice.exceptions;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.authservice.exceptions;
+
+public class LookupBatchTooLargeException extends RuntimeException {
+    public LookupBatchTooLargeException(String s) {
+        super(s);
+    }
+}
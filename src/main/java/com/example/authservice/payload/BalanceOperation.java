@@ -0,0 +1,7 @@
+package com.example.authservice.payload;
+
+import java.math.BigDecimal;
+
+// amount > 0 - пополнение, amount < 0 - списание; не больше двух знаков после запятой
+public record BalanceOperation(Long userId, BigDecimal amount, String reference) {
+}
@@ -0,0 +1,6 @@
+package com.example.authservice.payload;
+
+import java.math.BigDecimal;
+
+public record BalanceResponse(Long userId, BigDecimal amount, long version) {
+}
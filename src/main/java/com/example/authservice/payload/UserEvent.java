@@ -0,0 +1,13 @@
+package com.example.authservice.payload;
+
+import java.time.Instant;
+import java.util.List;
+
+// Сообщение топика user-events.topic; ключ - userId, события одного пользователя попадают в одну партицию.
+// Порядок в партиции совпадает с порядком записи только при одном узле relay: узлы забирают разные пачки
+// через SKIP LOCKED, и более позднее событие пользователя может уйти раньше. eventId растёт монотонно
+// в порядке записи - потребитель упорядочивает по нему и пропускает события с eventId не больше
+// уже применённого для этого userId (это же отсекает повторы at-least-once)
+public record UserEvent(long eventId, String type, Long userId, String username, String email,
+                        List<String> roles, Instant occurredAt) {
+}
@@ -0,0 +1,18 @@
+package com.example.authservice.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRow {
+    private String username;
+    private String password;
+    private String email;
+    // Начальный баланс, не больше двух знаков после запятой
+    private BigDecimal balance;
+}
@@ -0,0 +1,15 @@
+package com.example.authservice.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserLookupRequest {
+    private List<Long> ids;
+    private List<String> usernames;
+}
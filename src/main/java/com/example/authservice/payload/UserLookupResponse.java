@@ -0,0 +1,7 @@
+package com.example.authservice.payload;
+
+import java.util.Map;
+
+// Ненайденных ключей в картах нет
+public record UserLookupResponse(Map<Long, UserSummary> byId, Map<String, UserSummary> byUsername) {
+}
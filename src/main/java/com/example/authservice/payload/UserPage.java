@@ -0,0 +1,16 @@
+package com.example.authservice.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPage {
+    private List<UserSummary> items;
+    // id последнего элемента страницы; null, если страница последняя
+    private Long nextAfterId;
+}
@@ -1,12 +1,106 @@
 package com.example.authservice.repository;
 
 import com.example.authservice.entity.User;
+import com.example.authservice.payload.UserSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AuthRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
-
     Optional<Object> findByEmail(String email);
+
+    boolean existsByUsername(String username);
+
+    boolean existsByEmail(String email);
+
+    // Сущность вместе с ролями одним запросом - для изменений (роли, удаление, пароль)
+    @Query("select u from User u left join fetch u.roles where u.id = :id")
+    Optional<User> findWithRolesById(@Param("id") Long id);
+
+    @Query("select u from User u left join fetch u.roles where u.username = :username")
+    Optional<User> findWithRolesByUsername(@Param("username") String username);
+
+    // [id, username, password, role]
+    @Query("select u.id, u.username, u.password, r from User u left join u.roles r where u.username = :username")
+    List<Object[]> findCredentialRowsByUsername(@Param("username") String username);
+
+    // [id, username, email, role]
+    @Query("select u.id, u.username, u.email, r from User u left join u.roles r where u.id = :id")
+    List<Object[]> findViewRowsById(@Param("id") Long id);
+
+    @Query("select u.id, u.username, u.email, r from User u left join u.roles r where u.id in :ids order by u.id")
+    List<Object[]> findViewRowsByIds(@Param("ids") Collection<? extends Long> ids);
+
+    @Query("select u.id, u.username, u.email, r from User u left join u.roles r " +
+            "where u.username in :usernames order by u.id")
+    List<Object[]> findViewRowsByUsernames(@Param("usernames") Collection<String> usernames);
+
+    default Optional<UserCredentials> findCredentialsByUsername(String username) {
+        List<Object[]> rows = findCredentialRowsByUsername(username);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] first = rows.get(0);
+        return Optional.of(new UserCredentials((Long) first[0], (String) first[1], (String) first[2], roles(rows, 3)));
+    }
+
+    default Optional<UserSummary> findViewById(Long id) {
+        return toViews(findViewRowsById(id)).stream().findFirst();
+    }
+
+    default List<UserSummary> findViewsByIds(Collection<? extends Long> ids) {
+        return toViews(findViewRowsByIds(ids));
+    }
+
+    default List<UserSummary> findViewsByUsernames(Collection<String> usernames) {
+        return toViews(findViewRowsByUsernames(usernames));
+    }
+
+    @Query("select new com.example.authservice.payload.UserSummary(u.id, u.username, u.email) " +
+            "from User u where u.id > :afterId order by u.id")
+    List<UserSummary> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // [userId, role]
+    @Query("select u.id, r from User u join u.roles r where u.id in :ids")
+    List<Object[]> findRolesByUserIds(@Param("ids") Collection<Long> ids);
+
+    // [id, username, email, role]; строки одного пользователя идут подряд
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.id, u.username, u.email, r from User u left join u.roles r order by u.id")
+    Stream<Object[]> streamSummariesWithRoles();
+
+    // Строки [id, username, email, role] одного пользователя идут подряд
+    private static List<UserSummary> toViews(List<Object[]> rows) {
+        List<UserSummary> views = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            if (i == rows.size() || !rows.get(i)[0].equals(rows.get(start)[0])) {
+                Object[] first = rows.get(start);
+                views.add(new UserSummary((Long) first[0], (String) first[1], (String) first[2],
+                        roles(rows.subList(start, i), 3)));
+                start = i;
+            }
+        }
+        return views;
+    }
+
+    private static List<String> roles(List<Object[]> rows, int column) {
+        List<String> roles = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[column] != null) {
+                roles.add((String) row[column]);
+            }
+        }
+        return roles;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.BalanceLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BalanceLedgerRepository extends JpaRepository<BalanceLedgerEntry, Long> {
+}
@@ -0,0 +1,23 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.UserBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+// Изменения - атомарный UPDATE amount = amount + delta без чтения строки, поэтому
+// параллельные операции не теряют друг друга и не требуют SELECT FOR UPDATE
+public interface BalanceRepository extends JpaRepository<UserBalance, Long> {
+
+    @Modifying
+    @Query("update UserBalance b set b.amountMinor = b.amountMinor + :delta, b.version = b.version + 1 " +
+            "where b.userId = :userId")
+    int credit(@Param("userId") Long userId, @Param("delta") long delta);
+
+    // Списание проходит, только если после него баланс не уходит в минус; 0 строк - недостаточно средств или нет счёта
+    @Modifying
+    @Query("update UserBalance b set b.amountMinor = b.amountMinor - :amount, b.version = b.version + 1 " +
+            "where b.userId = :userId and b.amountMinor >= :amount")
+    int debit(@Param("userId") Long userId, @Param("amount") long amount);
+}
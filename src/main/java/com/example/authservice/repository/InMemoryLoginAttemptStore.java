@@ -0,0 +1,86 @@
+package com.example.authservice.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Счётчики одного узла: обновление через CAS по неизменяемому состоянию, без блокировок.
+// Число ключей ограничено, чтобы перебор IP/имён не раздувал память
+@Repository
+@ConditionalOnProperty(name = "login-rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    private final Cache<String, Entry> entries;
+
+    public InMemoryLoginAttemptStore(@Value("${login-rate-limit.max-keys:100000}") long maxKeys,
+                                     @Value("${login-rate-limit.window-seconds:60}") long windowSeconds,
+                                     @Value("${login-rate-limit.lockout.failure-ttl-seconds:900}") long failureTtlSeconds,
+                                     @Value("${login-rate-limit.lockout.max-seconds:3600}") long maxLockSeconds) {
+        long idleSeconds = Math.max(2 * windowSeconds, Math.max(failureTtlSeconds, maxLockSeconds));
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .build();
+    }
+
+    @Override
+    public LoginAttempts recordAttempt(String key, Duration window) {
+        long now = System.currentTimeMillis();
+        long windowMillis = window.toMillis();
+        long index = now / windowMillis;
+        Entry entry = entries.get(key, k -> new Entry());
+
+        Window updated = entry.window.updateAndGet(w -> {
+            if (w.index() == index) {
+                return new Window(index, w.current() + 1, w.previous());
+            }
+            return new Window(index, 1, w.index() == index - 1 ? w.current() : 0);
+        });
+        long attempts = SlidingWindow.estimate(updated.current(), updated.previous(), now - index * windowMillis, windowMillis);
+
+        Failures failures = entry.failures.get();
+        long failureCount = failures.expiresAt() > now ? failures.count() : 0;
+        return new LoginAttempts(attempts, failureCount, Math.max(0, entry.lockedUntil.get() - now));
+    }
+
+    @Override
+    public long recordFailure(String key, Duration ttl) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key, k -> new Entry());
+        return entry.failures.updateAndGet(f -> new Failures(
+                f.expiresAt() > now ? f.count() + 1 : 1, now + ttl.toMillis())).count();
+    }
+
+    @Override
+    public void lock(String key, Duration duration) {
+        long until = System.currentTimeMillis() + duration.toMillis();
+        entries.get(key, k -> new Entry()).lockedUntil.accumulateAndGet(until, Math::max);
+    }
+
+    @Override
+    public void resetFailures(String key) {
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null) {
+            entry.failures.set(Failures.NONE);
+        }
+    }
+
+    private record Window(long index, long current, long previous) {
+    }
+
+    private record Failures(long count, long expiresAt) {
+        static final Failures NONE = new Failures(0, 0);
+    }
+
+    private static final class Entry {
+        final AtomicReference<Window> window = new AtomicReference<>(new Window(0, 0, 0));
+        final AtomicReference<Failures> failures = new AtomicReference<>(Failures.NONE);
+        final AtomicLong lockedUntil = new AtomicLong();
+    }
+}
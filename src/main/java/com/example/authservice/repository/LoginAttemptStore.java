@@ -0,0 +1,15 @@
+package com.example.authservice.repository;
+
+import java.time.Duration;
+
+public interface LoginAttemptStore {
+
+    LoginAttempts recordAttempt(String key, Duration window);
+
+    // Возвращает число неудач подряд с учётом текущей
+    long recordFailure(String key, Duration ttl);
+
+    void lock(String key, Duration duration);
+
+    void resetFailures(String key);
+}
@@ -0,0 +1,6 @@
+package com.example.authservice.repository;
+
+// attempts - оценка числа попыток за скользящее окно с учётом текущей,
+// failures - неудачи подряд, lockedForMillis - остаток блокировки (0, если её нет)
+public record LoginAttempts(long attempts, long failures, long lockedForMillis) {
+}
@@ -0,0 +1,133 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.User;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Те же таблицы users/user_roles, что и у AuthRepository, но через R2DBC без блокировки потока
+@Repository
+@Profile("reactive")
+public class ReactiveUserRepository {
+
+    private static final String SELECT_WITH_ROLES = """
+            SELECT u.id, u.username, u.password, u.email, r.role
+            FROM users u
+            LEFT JOIN user_roles r ON r.user_id = u.id
+            """;
+
+    // Пользователь, его роль, счёт баланса и событие outbox вставляются одним запросом, поэтому транзакция не нужна
+    private static final String INSERT_WITH_ROLE = """
+            WITH inserted AS (
+                INSERT INTO users (username, password, email)
+                VALUES (:username, :password, :email)
+                RETURNING id, username, email
+            ), role AS (
+                INSERT INTO user_roles (user_id, role)
+                SELECT id, :role FROM inserted
+            ), balance AS (
+                INSERT INTO user_balances (user_id, amount_minor, version)
+                SELECT id, 0, 0 FROM inserted
+            )
+            INSERT INTO user_outbox (type, user_id, username, email, roles, created_at)
+            SELECT 'USER_CREATED', id, username, email, :role, now() FROM inserted
+            RETURNING user_id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<User> findByUsername(String username) {
+        return databaseClient.sql(SELECT_WITH_ROLES + "WHERE u.username = :username")
+                .bind("username", username)
+                .map(UserRow::from)
+                .all()
+                .collectList()
+                .flatMap(ReactiveUserRepository::toUser);
+    }
+
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql(SELECT_WITH_ROLES + "WHERE u.id = :id")
+                .bind("id", id)
+                .map(UserRow::from)
+                .all()
+                .collectList()
+                .flatMap(ReactiveUserRepository::toUser);
+    }
+
+    public Mono<Boolean> existsByUsername(String username) {
+        return databaseClient.sql("SELECT 1 FROM users WHERE username = :username")
+                .bind("username", username)
+                .map(row -> 1)
+                .first()
+                .hasElement();
+    }
+
+    public Mono<Boolean> existsByEmail(String email) {
+        if (email == null) {
+            return Mono.just(false);
+        }
+        return databaseClient.sql("SELECT 1 FROM users WHERE email = :email")
+                .bind("email", email)
+                .map(row -> 1)
+                .first()
+                .hasElement();
+    }
+
+    public Mono<User> insert(User user, String role) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT_WITH_ROLE)
+                .bind("username", user.getUsername())
+                .bind("password", user.getPassword())
+                .bind("role", role);
+        spec = user.getEmail() != null ? spec.bind("email", user.getEmail()) : spec.bindNull("email", String.class);
+
+        return spec.map(row -> row.get("user_id", Long.class))
+                .one()
+                .map(id -> {
+                    user.setId(id);
+                    user.setRoles(List.of(role));
+                    return user;
+                });
+    }
+
+    private static Mono<User> toUser(List<UserRow> rows) {
+        if (rows.isEmpty()) {
+            return Mono.empty();
+        }
+        UserRow first = rows.get(0);
+        User user = new User();
+        user.setId(first.id());
+        user.setUsername(first.username());
+        user.setPassword(first.password());
+        user.setEmail(first.email());
+
+        List<String> roles = new ArrayList<>(rows.size());
+        for (UserRow row : rows) {
+            if (row.role() != null) {
+                roles.add(row.role());
+            }
+        }
+        user.setRoles(roles);
+        return Mono.just(user);
+    }
+
+    private record UserRow(Long id, String username, String password, String email, String role) {
+
+        static UserRow from(Readable row) {
+            return new UserRow(
+                    row.get("id", Long.class),
+                    row.get("username", String.class),
+                    row.get("password", String.class),
+                    row.get("email", String.class),
+                    row.get("role", String.class));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.authservice.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+// Общие для всех узлов счётчики. Ключи одного субъекта под одним hash tag, поэтому
+// скрипт работает и в Redis Cluster; проверка попытки - один round trip
+@Repository
+@ConditionalOnProperty(name = "login-rate-limit.store", havingValue = "redis")
+public class RedisLoginAttemptStore implements LoginAttemptStore {
+
+    private static final String KEY_PREFIX = "auth:login:{";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ATTEMPT_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('INCR', KEYS[1])
+            if current == 1 then
+              redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            end
+            local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+            local failures = tonumber(redis.call('GET', KEYS[3]) or '0')
+            local locked = redis.call('PTTL', KEYS[4])
+            return {current, previous, failures, locked}
+            """, List.class);
+
+    private static final RedisScript<Long> FAILURE_SCRIPT = new DefaultRedisScript<>("""
+            local failures = redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return failures
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RedisLoginAttemptStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public LoginAttempts recordAttempt(String key, Duration window) {
+        long now = System.currentTimeMillis();
+        long windowMillis = window.toMillis();
+        long index = now / windowMillis;
+
+        List<?> result = redisTemplate.execute(ATTEMPT_SCRIPT,
+                List.of(rateKey(key, index), rateKey(key, index - 1), failuresKey(key), lockKey(key)),
+                String.valueOf(2 * windowMillis));
+        if (result == null || result.size() < 4) {
+            return new LoginAttempts(1, 0, 0);
+        }
+        long attempts = SlidingWindow.estimate(number(result.get(0)), number(result.get(1)),
+                now - index * windowMillis, windowMillis);
+        return new LoginAttempts(attempts, number(result.get(2)), Math.max(0, number(result.get(3))));
+    }
+
+    @Override
+    public long recordFailure(String key, Duration ttl) {
+        Long failures = redisTemplate.execute(FAILURE_SCRIPT, List.of(failuresKey(key)),
+                String.valueOf(ttl.toMillis()));
+        return failures != null ? failures : 1;
+    }
+
+    @Override
+    public void lock(String key, Duration duration) {
+        redisTemplate.opsForValue().set(lockKey(key), "1", duration);
+    }
+
+    @Override
+    public void resetFailures(String key) {
+        redisTemplate.delete(failuresKey(key));
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static String rateKey(String key, long windowIndex) {
+        return KEY_PREFIX + key + "}:rate:" + windowIndex;
+    }
+
+    private static String failuresKey(String key) {
+        return KEY_PREFIX + key + "}:failures";
+    }
+
+    private static String lockKey(String key) {
+        return KEY_PREFIX + key + "}:lock";
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.authservice.repository;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+@Repository
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    private static final String KEY_PREFIX = "auth:refresh:";
+
+    // Сравнение хеша и замена выполняются атомарно, поэтому два параллельных refresh
+    // одним токеном не могут оба пройти: второй увидит чужой хеш и отзовёт сессию
+    private static final RedisScript<String> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if not current then
+              return 'INVALID'
+            end
+            local sep = string.find(current, ':', 1, true)
+            if string.sub(current, 1, sep - 1) ~= ARGV[1] then
+              redis.call('DEL', KEYS[1])
+              return 'REUSED'
+            end
+            local session = string.sub(current, sep + 1)
+            redis.call('SET', KEYS[1], ARGV[2] .. ':' .. session, 'EX', ARGV[3])
+            return 'OK:' .. session
+            """, String.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RedisRefreshTokenStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void create(String familyId, String tokenHash, String username, long generation, Duration ttl) {
+        redisTemplate.opsForValue().set(key(familyId), value(tokenHash, generation, username), ttl);
+    }
+
+    @Override
+    public RefreshRotation rotate(String familyId, String presentedHash, String newHash, Duration ttl) {
+        String result = redisTemplate.execute(ROTATE_SCRIPT, List.of(key(familyId)),
+                presentedHash, newHash, String.valueOf(ttl.toSeconds()));
+        if (result == null || result.equals("INVALID")) {
+            return new RefreshRotation(RefreshRotation.Status.INVALID, null, 0);
+        }
+        if (result.equals("REUSED")) {
+            return new RefreshRotation(RefreshRotation.Status.REUSED, null, 0);
+        }
+        return rotated(result.substring("OK:".length()));
+    }
+
+    // <generation>:<username>; сессии, созданные до появления поколений, хранят только имя
+    private static RefreshRotation rotated(String session) {
+        int sep = session.indexOf(':');
+        if (sep > 0 && session.chars().limit(sep).allMatch(Character::isDigit)) {
+            return new RefreshRotation(RefreshRotation.Status.ROTATED, session.substring(sep + 1),
+                    Long.parseLong(session.substring(0, sep)));
+        }
+        return new RefreshRotation(RefreshRotation.Status.ROTATED, session, 0);
+    }
+
+    @Override
+    public void delete(String familyId) {
+        redisTemplate.delete(key(familyId));
+    }
+
+    public static String key(String familyId) {
+        return KEY_PREFIX + familyId;
+    }
+
+    public static String value(String tokenHash, long generation, String username) {
+        return tokenHash + ":" + generation + ":" + username;
+    }
+}
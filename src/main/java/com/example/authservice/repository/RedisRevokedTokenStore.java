@@ -0,0 +1,34 @@
+package com.example.authservice.repository;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+
+// ZSET auth:revoked: member - jti, score - время истечения токена в секундах
+@Repository
+public class RedisRevokedTokenStore implements RevokedTokenStore {
+
+    private static final String KEY = "auth:revoked";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RedisRevokedTokenStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void add(String tokenId, Instant expiresAt) {
+        redisTemplate.opsForZSet().add(KEY, tokenId, expiresAt.getEpochSecond());
+    }
+
+    @Override
+    public Set<String> findActive(Instant now) {
+        long nowSeconds = now.getEpochSecond();
+        redisTemplate.opsForZSet().removeRangeByScore(KEY, Double.NEGATIVE_INFINITY, nowSeconds);
+        Set<String> revoked = redisTemplate.opsForZSet().rangeByScore(KEY, nowSeconds, Double.POSITIVE_INFINITY);
+        return revoked != null ? revoked : Collections.emptySet();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.authservice.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+// HASH auth:signing-keys: kid -> "<createdAt epoch seconds>|enc:<base64 iv + private>|<base64 public>".
+// Закрытый ключ зашифрован AES-GCM на KEK из jwt.signing.key-encryption-secret (по умолчанию jwt.secret),
+// kid входит в AAD. Записи без префикса enc: - открытые ключи до шифрования, читаются как есть
+@Repository
+public class RedisSigningKeyStore implements SigningKeyStore {
+
+    private static final String KEY = "auth:signing-keys";
+    private static final String ROTATION_LOCK_KEY = "auth:signing-keys:rotation-lock";
+    private static final String ES256_SINCE_KEY = "auth:signing-keys:es256-since";
+    private static final String ENCRYPTED_PREFIX = "enc:";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final SecretKeySpec keyEncryptionKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public RedisSigningKeyStore(RedisTemplate<String, String> redisTemplate,
+                                @Value("${jwt.signing.key-encryption-secret:${jwt.secret}}") String keyEncryptionSecret) {
+        this.redisTemplate = redisTemplate;
+        this.keyEncryptionKey = deriveKey(keyEncryptionSecret);
+    }
+
+    // HMAC-SHA256 секрета с меткой назначения: KEK не совпадает с ключом HMAC-подписи на том же jwt.secret
+    private static SecretKeySpec deriveKey(String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return new SecretKeySpec(mac.doFinal(KEY.getBytes(StandardCharsets.UTF_8)), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public List<StoredSigningKey> findAll() {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(KEY);
+        List<StoredSigningKey> keys = new ArrayList<>(entries.size());
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String kid = (String) entry.getKey();
+            String[] parts = ((String) entry.getValue()).split("\\|");
+            keys.add(new StoredSigningKey(
+                    kid,
+                    Instant.ofEpochSecond(Long.parseLong(parts[0])),
+                    decryptPrivateKey(kid, parts[1]),
+                    Base64.getDecoder().decode(parts[2])));
+        }
+        return keys;
+    }
+
+    @Override
+    public void add(StoredSigningKey key) {
+        String value = key.createdAt().getEpochSecond()
+                + "|" + encryptPrivateKey(key.kid(), key.privateKey())
+                + "|" + Base64.getEncoder().encodeToString(key.publicKey());
+        redisTemplate.opsForHash().put(KEY, key.kid(), value);
+    }
+
+    @Override
+    public void remove(String kid) {
+        redisTemplate.opsForHash().delete(KEY, kid);
+    }
+
+    @Override
+    public boolean tryLockRotation(Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(ROTATION_LOCK_KEY, "1", ttl));
+    }
+
+    @Override
+    public Instant recordEs256Since(Instant now) {
+        redisTemplate.opsForValue().setIfAbsent(ES256_SINCE_KEY, String.valueOf(now.getEpochSecond()));
+        String stored = redisTemplate.opsForValue().get(ES256_SINCE_KEY);
+        return stored != null ? Instant.ofEpochSecond(Long.parseLong(stored)) : now;
+    }
+
+    private String encryptPrivateKey(String kid, byte[] privateKey) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(privateKey);
+            return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось зашифровать ключ подписи " + kid, e);
+        }
+    }
+
+    private byte[] decryptPrivateKey(String kid, String value) {
+        if (!value.startsWith(ENCRYPTED_PREFIX)) {
+            return Base64.getDecoder().decode(value);
+        }
+        byte[] data = Base64.getDecoder().decode(value.substring(ENCRYPTED_PREFIX.length()));
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, data, 0, IV_LENGTH));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            // Неверный KEK или подменённая запись
+            throw new IllegalStateException("Не удалось расшифровать ключ подписи " + kid, e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.authservice.repository;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class RedisTokenGenerationStore implements TokenGenerationStore {
+
+    public static final String CHANNEL = "auth:token-generation";
+    private static final String KEY_PREFIX = "auth:gen:";
+
+    // INCR и PUBLISH атомарно: узел не может увидеть сообщение раньше нового значения.
+    // Счётчик хранится без TTL: refresh-сессия продлевается при каждой ротации и может пережить
+    // любой срок, а сброс счётчика в 0 вернул бы к жизни сессии и токены, отозванные раньше
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>("""
+            local generation = redis.call('INCR', KEYS[1])
+            redis.call('PUBLISH', ARGV[1], generation .. ':' .. ARGV[2])
+            return generation
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RedisTokenGenerationStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public long get(String username) {
+        String value = redisTemplate.opsForValue().get(KEY_PREFIX + username);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    @Override
+    public long increment(String username) {
+        Long generation = redisTemplate.execute(INCREMENT_SCRIPT, List.of(KEY_PREFIX + username),
+                CHANNEL, username);
+        return generation != null ? generation : 0;
+    }
+}
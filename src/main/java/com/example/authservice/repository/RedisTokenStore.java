@@ -0,0 +1,55 @@
+package com.example.authservice.repository;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+public class RedisTokenStore implements TokenStore {
+
+    private static final String KEY_PREFIX = "auth:token:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RedisTokenStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void apply(List<TokenOperation> batch) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (TokenOperation op : batch) {
+                    switch (op.type()) {
+                        case REGISTER -> ops.opsForValue().set(key(op.tokenId()), op.username(), op.ttl());
+                        case REVOKE -> ops.delete(key(op.tokenId()));
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public List<String> multiGet(List<String> tokenIds) {
+        List<String> keys = new ArrayList<>(tokenIds.size());
+        for (String tokenId : tokenIds) {
+            keys.add(key(tokenId));
+        }
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        return values != null ? values : Collections.nCopies(tokenIds.size(), null);
+    }
+
+    private static String key(String tokenId) {
+        return KEY_PREFIX + tokenId;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.authservice.repository;
+
+// generation - поколение токенов пользователя на момент создания сессии
+public record RefreshRotation(Status status, String username, long generation) {
+
+    public enum Status {
+        ROTATED,
+        // Сессии нет или она истекла
+        INVALID,
+        // Предъявлен уже использованный токен: сессия удалена целиком
+        REUSED
+    }
+}
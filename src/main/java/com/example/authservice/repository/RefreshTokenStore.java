@@ -0,0 +1,13 @@
+package com.example.authservice.repository;
+
+import java.time.Duration;
+
+// Одна запись на активную refresh-сессию (семейство): хеш текущего токена, поколение и имя пользователя
+public interface RefreshTokenStore {
+
+    void create(String familyId, String tokenHash, String username, long generation, Duration ttl);
+
+    RefreshRotation rotate(String familyId, String presentedHash, String newHash, Duration ttl);
+
+    void delete(String familyId);
+}
@@ -0,0 +1,12 @@
+package com.example.authservice.repository;
+
+import java.time.Instant;
+import java.util.Set;
+
+public interface RevokedTokenStore {
+
+    void add(String tokenId, Instant expiresAt);
+
+    // Отозванные токены, срок действия которых ещё не истёк
+    Set<String> findActive(Instant now);
+}
@@ -0,0 +1,20 @@
+package com.example.authservice.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public interface SigningKeyStore {
+
+    List<StoredSigningKey> findAll();
+
+    void add(StoredSigningKey key);
+
+    void remove(String kid);
+
+    // Не даёт нескольким узлам одновременно выпустить новый ключ при ротации
+    boolean tryLockRotation(Duration ttl);
+
+    // Момент перехода на ES256: записывается первым узлом, остальные и перезапуски получают записанный
+    Instant recordEs256Since(Instant now);
+}
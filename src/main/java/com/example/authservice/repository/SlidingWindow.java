@@ -0,0 +1,14 @@
+package com.example.authservice.repository;
+
+// Скользящее окно из двух фиксированных: попытки прошлого окна учитываются
+// пропорционально той его части, что ещё попадает в последние windowMillis
+final class SlidingWindow {
+
+    private SlidingWindow() {
+    }
+
+    static long estimate(long current, long previous, long elapsedMillis, long windowMillis) {
+        long remaining = Math.max(0, windowMillis - elapsedMillis);
+        return current + (previous * remaining + windowMillis - 1) / windowMillis;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.authservice.repository;
+
+import java.time.Instant;
+
+// Ключи в DER: privateKey - PKCS#8, publicKey - X.509 SubjectPublicKeyInfo
+public record StoredSigningKey(String kid, Instant createdAt, byte[] privateKey, byte[] publicKey) {
+}
@@ -0,0 +1,12 @@
+package com.example.authservice.repository;
+
+// Номер поколения токенов пользователя. Токены с gen меньше текущего недействительны,
+// поэтому отзыв всех сессий - одно увеличение счётчика, без поиска самих токенов
+public interface TokenGenerationStore {
+
+    // 0, если поколение ещё ни разу не увеличивалось
+    long get(String username);
+
+    // Увеличивает поколение и рассылает новое значение остальным узлам
+    long increment(String username);
+}
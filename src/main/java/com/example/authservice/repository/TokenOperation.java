@@ -0,0 +1,19 @@
+package com.example.authservice.repository;
+
+import java.time.Duration;
+
+public record TokenOperation(Type type, String tokenId, String username, Duration ttl) {
+
+    public enum Type {
+        REGISTER,
+        REVOKE
+    }
+
+    public static TokenOperation register(String tokenId, String username, Duration ttl) {
+        return new TokenOperation(Type.REGISTER, tokenId, username, ttl);
+    }
+
+    public static TokenOperation revoke(String tokenId) {
+        return new TokenOperation(Type.REVOKE, tokenId, null, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.authservice.repository;
+
+import java.util.List;
+
+public interface TokenStore {
+
+    void apply(List<TokenOperation> operations);
+
+    // Возвращает значения в том же порядке, что и tokenIds; null для отсутствующих
+    List<String> multiGet(List<String> tokenIds);
+}
@@ -0,0 +1,7 @@
+package com.example.authservice.repository;
+
+import java.util.List;
+
+// Ровно то, что нужно для проверки пароля и выдачи токена; читается одним запросом вместе с ролями
+public record UserCredentials(Long id, String username, String password, List<String> roles) {
+}
@@ -0,0 +1,16 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.UserOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UserOutboxRepository extends JpaRepository<UserOutboxEvent, Long> {
+
+    // SKIP LOCKED: несколько узлов разбирают outbox параллельно, не дожидаясь и не дублируя друг друга
+    // Порядок событий одного пользователя между узлами при этом не сохраняется - см. UserEvent
+    @Query(value = "select * from user_outbox order by id limit :limit for update skip locked", nativeQuery = true)
+    List<UserOutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
@@ -16,9 +16,13 @@ public class CustomUserDetails implements UserDetails {
     private List<GrantedAuthority> authorities;
 
     public CustomUserDetails(User user) {
-        this.username = user.getUsername();
-        this.password = user.getPassword();
-        this.authorities = user.getRoles().stream()
+        this(user.getUsername(), user.getPassword(), user.getRoles());
+    }
+
+    public CustomUserDetails(String username, String password, List<String> roles) {
+        this.username = username;
+        this.password = password;
+        this.authorities = roles.stream()
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
     }
@@ -2,38 +2,86 @@ package com.example.authservice.security;
 
 import com.example.authservice.entity.User;
 import com.example.authservice.repository.AuthRepository;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.example.authservice.repository.UserCredentials;
+import com.example.authservice.utils.ReadYourWrites;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final AuthRepository authRepository;
+    // CustomUserDetails не реализует CredentialsContainer, поэтому ProviderManager не затирает
+    // пароль в закешированном экземпляре после успешной аутентификации
+    private final Cache<String, CustomUserDetails> userDetailsCache;
+    // Только промахи кеша: попадания видны в cache.gets{cache=userDetails,result=hit}
+    private final Timer lookupTimer;
+    private final ReadYourWrites readYourWrites;
 
-    public CustomUserDetailsService(AuthRepository authRepository) {
+    public CustomUserDetailsService(AuthRepository authRepository, MeterRegistry meterRegistry,
+                                    ReadYourWrites readYourWrites,
+                                    @Value("${user-details-cache.max-size:10000}") long maxSize,
+                                    @Value("${user-details-cache.ttl-seconds:60}") long ttlSeconds) {
         this.authRepository = authRepository;
+        this.readYourWrites = readYourWrites;
+        this.userDetailsCache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .<String, CustomUserDetails>build(), "userDetails");
+        this.lookupTimer = Timer.builder("auth.user.lookup")
+                .description("Загрузка пользователя из БД при промахе кеша")
+                .register(meterRegistry);
     }
 
+    // При попадании в кеш транзакция не занимает соединение: DataSourceConfig берёт его лениво
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = authRepository.findByUsername(username)
+        CustomUserDetails cached = userDetailsCache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Имя, хеш и роли одним запросом, без загрузки сущности User
+        UserCredentials credentials = lookupTimer.record(() -> readYourWrites.readByUsername(username,
+                        () -> authRepository.findCredentialsByUsername(username)))
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
 
-        return new CustomUserDetails(user);
+        CustomUserDetails userDetails = new CustomUserDetails(credentials.username(), credentials.password(),
+                credentials.roles());
+        userDetailsCache.put(username, userDetails);
+        return userDetails;
     }
 
-    private List<GrantedAuthority> getAuthorities(List<String> roles) {
-        List<GrantedAuthority> authorities = new ArrayList<>();
-        for (String role : roles) {
-            authorities.add(new SimpleGrantedAuthority(role));
-        }
-        return authorities;
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = authRepository.findWithRolesByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+        user.setPassword(newPassword);
+        authRepository.save(user);
+        readYourWrites.recordWrite(user.getId(), user.getUsername());
+
+        CustomUserDetails updated = new CustomUserDetails(user);
+        userDetailsCache.put(user.getUsername(), updated);
+        return updated;
+    }
+
+    // Вызывается при создании, удалении пользователя и смене его ролей
+    public void evict(String username) {
+        userDetailsCache.invalidate(username);
     }
 }
@@ -0,0 +1,59 @@
+package com.example.authservice.security;
+
+import com.example.authservice.utils.JwtVerifier;
+import com.example.authservice.utils.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Authentication строится только из проверенного токена (subject и roles), без обращения к БД
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtVerifier jwtVerifier;
+    private final TokenRevocationService revocationService;
+
+    public JwtAuthenticationFilter(JwtVerifier jwtVerifier, TokenRevocationService revocationService) {
+        this.jwtVerifier = jwtVerifier;
+        this.revocationService = revocationService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            authenticate(header.substring(BEARER_PREFIX.length()));
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(String token) {
+        VerifiedToken verified;
+        try {
+            verified = jwtVerifier.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        if (revocationService.isRevoked(verified)) {
+            return;
+        }
+
+        List<SimpleGrantedAuthority> authorities = verified.roles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(verified.subject(), null, authorities));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.authservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Одновременные проверки одних и тех же учётных данных (повторы клиента, реплей бота) схлопываются
+// в одну: первый запрос (leader) выполняет lookup и bcrypt, остальные ждут его результат.
+// Ключ - имя и HMAC пароля на случайном ключе процесса, поэтому пароль не хранится и дайджест не переносим
+@Component
+public class LoginCoalescer {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec digestKey;
+    private final ConcurrentHashMap<FlightKey, CompletableFuture<Authentication>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter followers;
+
+    public LoginCoalescer(MeterRegistry meterRegistry,
+                          @Value("${login-coalescing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+
+        // Доля схлопнутых логинов: follower / (leader + follower)
+        this.leaders = coalesceCounter(meterRegistry, "leader");
+        this.followers = coalesceCounter(meterRegistry, "follower");
+        Gauge.builder("auth.login.coalesce.in_flight", inFlight, ConcurrentHashMap::size)
+                .description("Проверки учётных данных, выполняющиеся сейчас")
+                .register(meterRegistry);
+    }
+
+    private static Counter coalesceCounter(MeterRegistry meterRegistry, String role) {
+        return Counter.builder("auth.login.coalesce")
+                .description("Проверки учётных данных: выполненные (leader) и полученные от уже идущей (follower)")
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    // Исключение проверки (BadCredentialsException и др.) получает каждый из ожидавших
+    public Authentication authenticate(String username, String password, Supplier<Authentication> check) {
+        if (!enabled || username == null || password == null) {
+            return check.get();
+        }
+
+        FlightKey key = new FlightKey(username, digest(password));
+        CompletableFuture<Authentication> flight = new CompletableFuture<>();
+        CompletableFuture<Authentication> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            followers.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        try {
+            Authentication authentication = check.get();
+            flight.complete(authentication);
+            return authentication;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Результат не кешируется: следующий запрос после завершения проверяет пароль заново
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static Authentication await(CompletableFuture<Authentication> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private String digest(String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(digestKey);
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 недоступен", e);
+        }
+    }
+
+    private record FlightKey(String username, String passwordDigest) {
+    }
+}
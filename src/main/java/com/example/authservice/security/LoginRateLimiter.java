@@ -0,0 +1,141 @@
+package com.example.authservice.security;
+
+import com.example.authservice.exceptions.LoginRateLimitedException;
+import com.example.authservice.repository.LoginAttemptStore;
+import com.example.authservice.repository.LoginAttempts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Ограничение частоты логинов по IP и по паре (имя, сеть клиента) и прогрессивная блокировка той же пары
+// после серии неудач. И лимит, и блокировка действуют только на сеть, из которой идёт перебор: владелец
+// имени входит из своей, а перебор с многих сетей упирается в лимит каждой сети и в лимит по IP.
+// Проверка идёт до хеширования пароля, поэтому перебор не расходует bcrypt
+@Component
+public class LoginRateLimiter {
+
+    private static final String REJECTED_METRIC = "auth.login.rejected";
+
+    private final LoginAttemptStore store;
+    private final boolean enabled;
+    private final Duration window;
+    private final long maxAttemptsPerUsername;
+    private final long maxAttemptsPerIp;
+    private final long failuresThreshold;
+    private final Duration baseLockout;
+    private final Duration maxLockout;
+    private final Duration failureTtl;
+
+    private final Counter usernameRejected;
+    private final Counter ipRejected;
+    private final Counter lockedRejected;
+    private final Counter lockouts;
+
+    public LoginRateLimiter(LoginAttemptStore store, MeterRegistry meterRegistry,
+                            @Value("${login-rate-limit.enabled:true}") boolean enabled,
+                            @Value("${login-rate-limit.window-seconds:60}") long windowSeconds,
+                            @Value("${login-rate-limit.max-attempts-per-username:10}") long maxAttemptsPerUsername,
+                            @Value("${login-rate-limit.max-attempts-per-ip:100}") long maxAttemptsPerIp,
+                            @Value("${login-rate-limit.lockout.failures-threshold:5}") long failuresThreshold,
+                            @Value("${login-rate-limit.lockout.base-seconds:30}") long baseLockoutSeconds,
+                            @Value("${login-rate-limit.lockout.max-seconds:3600}") long maxLockoutSeconds,
+                            @Value("${login-rate-limit.lockout.failure-ttl-seconds:900}") long failureTtlSeconds) {
+        this.store = store;
+        this.enabled = enabled;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.maxAttemptsPerUsername = maxAttemptsPerUsername;
+        this.maxAttemptsPerIp = maxAttemptsPerIp;
+        this.failuresThreshold = failuresThreshold;
+        this.baseLockout = Duration.ofSeconds(baseLockoutSeconds);
+        this.maxLockout = Duration.ofSeconds(maxLockoutSeconds);
+        this.failureTtl = Duration.ofSeconds(failureTtlSeconds);
+
+        this.usernameRejected = rejectedCounter(meterRegistry, "username");
+        this.ipRejected = rejectedCounter(meterRegistry, "ip");
+        this.lockedRejected = rejectedCounter(meterRegistry, "locked");
+        this.lockouts = Counter.builder("auth.login.lockouts")
+                .description("Блокировки пары имя и сеть клиента после серии неудачных логинов")
+                .register(meterRegistry);
+    }
+
+    public Permit acquire(String username, String clientIp) {
+        if (!enabled) {
+            return Permit.UNLIMITED;
+        }
+
+        if (clientIp != null) {
+            LoginAttempts ip = store.recordAttempt("ip:" + clientIp, window);
+            if (ip.attempts() > maxAttemptsPerIp) {
+                ipRejected.increment();
+                throw rejected(window.toMillis());
+            }
+        }
+
+        String name = username != null ? username.toLowerCase(Locale.ROOT) : "";
+        String lockoutKey = "l:" + name + "|" + network(clientIp);
+        LoginAttempts lockout = store.recordAttempt(lockoutKey, window);
+        if (lockout.lockedForMillis() > 0) {
+            lockedRejected.increment();
+            throw rejected(lockout.lockedForMillis());
+        }
+        // Счётчик попыток пары ведётся той же записью, что и блокировка, - без отдельного запроса к хранилищу
+        if (lockout.attempts() > maxAttemptsPerUsername) {
+            usernameRejected.increment();
+            throw rejected(window.toMillis());
+        }
+        return new Permit(lockoutKey, lockout.failures());
+    }
+
+    public void recordSuccess(Permit permit) {
+        // Сброс только если были неудачи: обычный успешный логин не делает лишнего запроса к хранилищу
+        if (permit.lockoutKey() != null && permit.failures() > 0) {
+            store.resetFailures(permit.lockoutKey());
+        }
+    }
+
+    // Каждая неудача сверх порога удваивает блокировку, но не больше lockout.max-seconds
+    public void recordFailure(Permit permit) {
+        if (permit.lockoutKey() == null) {
+            return;
+        }
+        long failures = store.recordFailure(permit.lockoutKey(), failureTtl);
+        if (failures >= failuresThreshold) {
+            long exponent = Math.min(failures - failuresThreshold, 20);
+            Duration lockout = baseLockout.multipliedBy(1L << exponent);
+            store.lock(permit.lockoutKey(), lockout.compareTo(maxLockout) > 0 ? maxLockout : lockout);
+            lockouts.increment();
+        }
+    }
+
+    // IPv4 - подсеть /24, чтобы перебор со смежных адресов делил одну блокировку; IPv6 - адрес целиком
+    static String network(String clientIp) {
+        if (clientIp == null) {
+            return "";
+        }
+        int lastDot = clientIp.lastIndexOf('.');
+        if (lastDot > 0 && clientIp.indexOf(':') < 0) {
+            return clientIp.substring(0, lastDot);
+        }
+        return clientIp.toLowerCase(Locale.ROOT);
+    }
+
+    private static LoginRateLimitedException rejected(long retryAfterMillis) {
+        long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        return new LoginRateLimitedException("Слишком много попыток входа, повторите позже", retryAfterSeconds);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(REJECTED_METRIC)
+                .description("Попытки логина, отклонённые ограничителем до проверки пароля")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public record Permit(String lockoutKey, long failures) {
+        static final Permit UNLIMITED = new Permit(null, 0);
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.authservice.security;
 
-import com.example.authservice.utils.PasswordConfig;
+import com.example.authservice.service.UserLookupService;
+import com.example.authservice.utils.JwtVerifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -11,19 +16,41 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.util.function.Supplier;
 
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
+@Profile("!reactive")
 public class SecurityConfig {
 
+    static final String ROLE_ADMIN = "ROLE_ADMIN";
+    // Внутренние сервисы (заказы, корзина): учётная запись с этой ролью назначается через PUT /users/{id}/roles
+    static final String ROLE_SERVICE = "ROLE_SERVICE";
+
     private final CustomUserDetailsService customUserDetailsService;
-    private final PasswordConfig passwordConfig;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtVerifier jwtVerifier;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserLookupService userLookupService;
 
-    public SecurityConfig(CustomUserDetailsService customUserDetailsService, PasswordConfig passwordConfig) {
+    public SecurityConfig(CustomUserDetailsService customUserDetailsService, PasswordEncoder passwordEncoder,
+                          JwtVerifier jwtVerifier, TokenRevocationService tokenRevocationService,
+                          UserLookupService userLookupService) {
         this.customUserDetailsService = customUserDetailsService;
-        this.passwordConfig = passwordConfig;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtVerifier = jwtVerifier;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userLookupService = userLookupService;
     }
 
 
@@ -34,16 +61,51 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(new JwtAuthenticationFilter(jwtVerifier, tokenRevocationService),
+                        UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
 //                        .requestMatchers("/auth/login", "/auth/register").permitAll()
 //                        .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
-//                        .requestMatchers("/users/**").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers("/users/**").hasAuthority(ROLE_ADMIN)
+                        // Администратора создаёт только администратор, иначе защита /users/** ничего не стоит
+                        .requestMatchers("/auth/registerAdmin").hasAuthority(ROLE_ADMIN)
+                        // Поиск пользователей возвращает email - только для внутренних сервисов и администратора
+                        .requestMatchers("/auth/lookup", "/auth/getById").hasAnyAuthority(ROLE_ADMIN, ROLE_SERVICE)
+                        // Деньги двигают только администратор и внутренние сервисы, баланс видят владелец и администратор
+                        .requestMatchers(HttpMethod.GET, "/balances/{userId}").access(this::ownerOrAdmin)
+                        .requestMatchers("/balances/**").hasAnyAuthority(ROLE_ADMIN, ROLE_SERVICE)
                         .anyRequest().permitAll());
 
         return http.build();
     }
 
 
+    // subject токена - имя пользователя, поэтому владелец определяется по имени пользователя с этим id
+    private AuthorizationDecision ownerOrAdmin(Supplier<Authentication> authentication,
+                                               RequestAuthorizationContext context) {
+        Authentication auth = authentication.get();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return new AuthorizationDecision(false);
+        }
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            if (ROLE_ADMIN.equals(authority.getAuthority())) {
+                return new AuthorizationDecision(true);
+            }
+        }
+        Long userId;
+        try {
+            userId = Long.valueOf(context.getVariables().get("userId"));
+        } catch (NumberFormatException e) {
+            return new AuthorizationDecision(false);
+        }
+        boolean owner = userLookupService.getById(userId)
+                .map(user -> user.getUsername().equals(auth.getName()))
+                .orElse(false);
+        return new AuthorizationDecision(owner);
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
         return authenticationConfiguration.getAuthenticationManager();
@@ -53,7 +115,8 @@ public class SecurityConfig {
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(customUserDetailsService);
-        provider.setPasswordEncoder(passwordConfig.passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(customUserDetailsService);
         return provider;
     }
 
@@ -0,0 +1,68 @@
+package com.example.authservice.security;
+
+import com.example.authservice.repository.TokenGenerationStore;
+import com.example.authservice.utils.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Текущее поколение токенов читается из локального кеша; увеличение на любом узле приходит
+// через pub/sub. Pub/sub не гарантирует доставку, поэтому у записей есть TTL - за это время
+// пропущенное сообщение перестаёт влиять
+@Service
+public class TokenGenerationService implements MessageListener {
+
+    private final TokenGenerationStore generationStore;
+    private final LoadingCache<String, Long> generations;
+
+    public TokenGenerationService(TokenGenerationStore generationStore,
+                                  @Value("${token-generation.cache.max-size:100000}") long maxSize,
+                                  @Value("${token-generation.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.generationStore = generationStore;
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build(generationStore::get);
+    }
+
+    public long current(String username) {
+        return generations.get(username);
+    }
+
+    // Токены без claim gen выпущены до появления поколений и считаются поколением 0
+    public boolean isStale(VerifiedToken token) {
+        long generation = token.generation() != null ? token.generation() : 0;
+        return generation < current(token.subject());
+    }
+
+    public boolean isStale(String username, long generation) {
+        return generation < current(username);
+    }
+
+    public long revokeAll(String username) {
+        long generation = generationStore.increment(username);
+        advance(username, generation);
+        return generation;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf(':');
+        if (sep <= 0) {
+            return;
+        }
+        advance(body.substring(sep + 1), Long.parseLong(body.substring(0, sep)));
+    }
+
+    // Поколение только растёт: запоздавшее сообщение не откатывает более новое значение
+    private void advance(String username, long generation) {
+        generations.asMap().merge(username, generation, Math::max);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.authservice.security;
+
+import com.example.authservice.repository.RevokedTokenStore;
+import com.example.authservice.service.TokenRegistry;
+import com.example.authservice.utils.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Проверка отзыва на каждом запросе идёт по локальному снимку, который раз в
+// jwt.revocation.refresh-interval-ms перечитывается из Redis
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenStore revokedTokenStore;
+    private final TokenRegistry tokenRegistry;
+    private final TokenGenerationService tokenGenerationService;
+    private volatile Set<String> snapshot = Set.of();
+    // Отозванные на этом узле, пока не попали в снимок
+    private final Set<String> revokedLocally = ConcurrentHashMap.newKeySet();
+
+    public TokenRevocationService(RevokedTokenStore revokedTokenStore, TokenRegistry tokenRegistry,
+                                  TokenGenerationService tokenGenerationService) {
+        this.revokedTokenStore = revokedTokenStore;
+        this.tokenRegistry = tokenRegistry;
+        this.tokenGenerationService = tokenGenerationService;
+    }
+
+    public void revoke(VerifiedToken token) {
+        revokedLocally.add(token.id());
+        tokenRegistry.revoke(token.id());
+        revokedTokenStore.add(token.id(), token.expiresAt());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return snapshot.contains(tokenId) || revokedLocally.contains(tokenId);
+    }
+
+    // Отозван сам токен или все сессии пользователя разом (поколение токена устарело)
+    public boolean isRevoked(VerifiedToken token) {
+        return isRevoked(token.id()) || tokenGenerationService.isStale(token);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        try {
+            Set<String> revoked = Set.copyOf(revokedTokenStore.findActive(Instant.now()));
+            snapshot = revoked;
+            revokedLocally.removeAll(revoked);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить список отозванных токенов, используется предыдущий снимок", e);
+        }
+    }
+}
@@ -1,49 +1,118 @@
 package com.example.authservice.service;
 
 import com.example.authservice.entity.User;
+import com.example.authservice.entity.UserOutboxEvent;
 import com.example.authservice.exceptions.EmailAlreadyExistsException;
+import com.example.authservice.exceptions.InvalidRefreshTokenException;
 import com.example.authservice.exceptions.UserAlreadyExistsException;
 import com.example.authservice.payload.AuthResponse;
+import com.example.authservice.payload.UserSummary;
 import com.example.authservice.repository.AuthRepository;
+import com.example.authservice.security.CustomUserDetailsService;
+import com.example.authservice.security.LoginCoalescer;
+import com.example.authservice.security.LoginRateLimiter;
+import com.example.authservice.security.TokenGenerationService;
 import com.example.authservice.utils.JwtTokenProvider;
+import com.example.authservice.utils.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Profile("!reactive")
 public class AuthService {
 
     private final AuthRepository authRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
     private final AuthenticationManager authenticationManager;
+    private final CustomUserDetailsService userDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenGenerationService tokenGenerationService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final UserEventOutbox userEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceService balanceService;
+    private final UserLookupService userLookupService;
+    private final LoginCoalescer loginCoalescer;
+    private final ReadYourWrites readYourWrites;
+
+    // Этапы логина: user lookup и сверка пароля идут внутри credentials, их отдельно показывают
+    // auth.user.lookup, auth.password.queue.wait и auth.password.hash
+    private final Timer rateLimitTimer;
+    private final Timer credentialsTimer;
+    private final Timer tokenSigningTimer;
+    private final Timer refreshWriteTimer;
+    private final Counter loginSucceeded;
+    private final Counter loginFailed;
 
     public AuthService(AuthRepository authRepository, PasswordEncoder passwordEncoder,
-                       JwtTokenProvider tokenProvider, AuthenticationManager authenticationManager) {
+                       JwtTokenProvider tokenProvider, AuthenticationManager authenticationManager,
+                       CustomUserDetailsService userDetailsService, RefreshTokenService refreshTokenService,
+                       TokenGenerationService tokenGenerationService, LoginRateLimiter loginRateLimiter,
+                       MeterRegistry meterRegistry, UserEventOutbox userEventOutbox, TransactionTemplate transactionTemplate,
+                       BalanceService balanceService, UserLookupService userLookupService,
+                       LoginCoalescer loginCoalescer, ReadYourWrites readYourWrites) {
         this.authRepository = authRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenProvider = tokenProvider;
         this.authenticationManager = authenticationManager;
+        this.userDetailsService = userDetailsService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenGenerationService = tokenGenerationService;
+        this.loginRateLimiter = loginRateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.userEventOutbox = userEventOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceService = balanceService;
+        this.userLookupService = userLookupService;
+        this.loginCoalescer = loginCoalescer;
+        this.readYourWrites = readYourWrites;
+
+        this.rateLimitTimer = loginStageTimer(meterRegistry, "rate_limit");
+        this.credentialsTimer = loginStageTimer(meterRegistry, "credentials");
+        this.tokenSigningTimer = loginStageTimer(meterRegistry, "token_signing");
+        this.refreshWriteTimer = loginStageTimer(meterRegistry, "refresh_write");
+        this.loginSucceeded = loginCounter(meterRegistry, "success");
+        this.loginFailed = loginCounter(meterRegistry, "bad_credentials");
     }
 
+    private static Timer loginStageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("auth.login.stage")
+                .description("Время этапа AuthService.authenticate")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
 
-    public Optional<User> createUser(User user) {
-        if (authRepository.findByUsername(user.getUsername()).isPresent()) {
-            throw new UserAlreadyExistsException("Пользователь с таким именем уже существует.");
-        }
+    private static Counter loginCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.login")
+                .description("Завершённые попытки логина")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 
-        if (authRepository.findByEmail(user.getEmail()).isPresent()) {
-            throw new EmailAlreadyExistsException("Пользователь с такой электронной почтой уже существует.");
-        }
 
+    // Уникальность username и email обеспечивают индексы users; отдельных SELECT перед вставкой нет
+    public Optional<User> createUser(User user) {
         return Optional.of(createUserWithRole(user, "ROLE_USER"));
     }
 
@@ -52,67 +121,171 @@ public class AuthService {
         return Optional.of(createUserWithRole(user, "ROLE_ADMIN"));
     }
 
-    public AuthResponse authenticate(String username, String password) {
-        Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
-                username,
-                password));
+    // Одинаковые одновременные логины разделяют только проверку пароля; access и refresh токены
+    // у каждого свои, иначе ротация одного refresh токена выглядела бы как повторное использование для других
+    public AuthResponse authenticate(String username, String password, String clientIp) {
+        LoginRateLimiter.Permit permit = rateLimitTimer.record(() -> loginRateLimiter.acquire(username, clientIp));
+
+        Authentication authentication;
+        Timer.Sample credentials = Timer.start(meterRegistry);
+        try {
+            authentication = loginCoalescer.authenticate(username, password,
+                    () -> authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+                            username,
+                            password)));
+        } catch (BadCredentialsException e) {
+            loginFailed.increment();
+            loginRateLimiter.recordFailure(permit);
+            throw e;
+        } finally {
+            credentials.stop(credentialsTimer);
+        }
+        loginRateLimiter.recordSuccess(permit);
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        String jwt = tokenProvider.generateToken(authentication);
+        String jwt = tokenSigningTimer.record(() -> tokenProvider.generateToken(authentication));
 
-        User user = authRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+        UserDetails principal = (UserDetails) authentication.getPrincipal();
+        String refreshToken = refreshWriteTimer.record(() -> refreshTokenService.issue(principal.getUsername()));
+        loginSucceeded.increment();
 
-        return AuthResponse.builder().token(jwt).username(user.getUsername()).build();
+        return AuthResponse.builder().token(jwt).username(principal.getUsername()).refreshToken(refreshToken).build();
     }
 
-    private User createUserWithRole(User user, String role) {
-        User newUser = new User();
-        newUser.setUsername(user.getUsername());
-        newUser.setBalance(user.getBalance());
-        newUser.setPassword(passwordEncoder.encode(user.getPassword()));
-        newUser.setEmail(user.getEmail());
-        List<String> roles = Collections.singletonList(role);
-        newUser.setRoles(roles);
-
-        return authRepository.save(newUser);
-    }
+    // Роли для нового access токена берутся из актуальных данных пользователя, а не из старого токена
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.RotatedRefreshToken rotated = refreshTokenService.rotate(refreshToken);
+
+        UserDetails principal;
+        try {
+            principal = userDetailsService.loadUserByUsername(rotated.username());
+        } catch (UsernameNotFoundException e) {
+            // Пользователь удалён: сессия больше не нужна, клиенту - 401, как для отозванного токена
+            refreshTokenService.revokeSession(rotated.refreshToken());
+            throw new InvalidRefreshTokenException("Пользователь не найден");
+        }
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.getAuthorities());
 
-    public Optional<User> getUserById(Long id) {
-        return authRepository.findById(id);
+        String jwt = tokenProvider.generateToken(authentication);
+
+        return AuthResponse.builder().token(jwt).username(principal.getUsername()).refreshToken(rotated.refreshToken()).build();
     }
 
+    private User createUserWithRole(User user, String role) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            User newUser = new User();
+            newUser.setUsername(user.getUsername());
+            newUser.setPassword(passwordEncoder.encode(user.getPassword()));
+            newUser.setEmail(user.getEmail());
+            List<String> roles = Collections.singletonList(role);
+            newUser.setRoles(roles);
 
-    public Optional<User> getByUsername(String username) {
-        return authRepository.findByUsername(username);
+            User saved = saveNewUser(newUser);
+            readYourWrites.recordWrite(saved.getId(), saved.getUsername());
+            userDetailsService.evict(saved.getUsername());
+            outcome = "created";
+            return saved;
+        } catch (UserAlreadyExistsException | EmailAlreadyExistsException e) {
+            outcome = "conflict";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("auth.user.create")
+                    .description("Регистрация пользователя, включая хеширование пароля")
+                    .tag("role", role)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
     }
 
-    public boolean deleteUser(Long id) {
-        if (authRepository.existsById(id)) {
-            authRepository.deleteById(id);
-            return true;
+    // Пользователь, его счёт баланса и событие USER_CREATED фиксируются одной транзакцией; в Kafka его отправит UserEventRelay
+    private User saveNewUser(User newUser) {
+        try {
+            return transactionTemplate.execute(status -> {
+                User saved = authRepository.saveAndFlush(newUser);
+                balanceService.open(saved.getId(), 0);
+                userEventOutbox.record(UserOutboxEvent.Type.USER_CREATED, saved);
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e, newUser);
         }
-        return false;
     }
 
-    public List<User> getAllUsers() {
-        return authRepository.findAll();
+    private RuntimeException translateUniqueViolation(DataIntegrityViolationException e, User user) {
+        String constraint = violatedConstraint(e);
+        if (constraint != null) {
+            if (constraint.contains(User.USERNAME_CONSTRAINT)) {
+                return new UserAlreadyExistsException("Пользователь с таким именем уже существует.");
+            }
+            if (constraint.contains(User.EMAIL_CONSTRAINT)) {
+                return new EmailAlreadyExistsException("Пользователь с такой электронной почтой уже существует.");
+            }
+        }
+
+        // Драйвер не сообщил имя ограничения - уточняем одним запросом, только на пути ошибки
+        if (authRepository.existsByUsername(user.getUsername())) {
+            return new UserAlreadyExistsException("Пользователь с таким именем уже существует.");
+        }
+        if (authRepository.existsByEmail(user.getEmail())) {
+            return new EmailAlreadyExistsException("Пользователь с такой электронной почтой уже существует.");
+        }
+        return e;
     }
 
-    public void validateAdminToken(String tokenHeader) {
-        if (tokenHeader == null || !tokenHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Неверный формат токена");
+    private static String violatedConstraint(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase();
+            }
         }
+        return null;
+    }
 
-        String token = tokenHeader.substring(7);
-        String username = tokenProvider.getUsernameFromToken(token);
-        User admin = getByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+    // Read-only транзакции уходят на реплику, если она настроена (DataSourceConfig)
+    @Transactional(readOnly = true)
+    public Optional<UserSummary> getUserById(Long id) {
+        return readYourWrites.readById(id, () -> userLookupService.getById(id));
+    }
 
-        if (!admin.getRoles().contains("ROLE_ADMIN")) {
-            throw new RuntimeException("Доступ запрещен. Требуются права администратора");
+    public boolean deleteUser(Long id) {
+        Optional<User> deleted = transactionTemplate.execute(status -> authRepository.findWithRolesById(id)
+                .map(user -> {
+                    userEventOutbox.record(UserOutboxEvent.Type.USER_DELETED, user);
+                    balanceService.close(user.getId());
+                    authRepository.delete(user);
+                    return user;
+                }));
+        if (deleted == null || deleted.isEmpty()) {
+            return false;
         }
+        readYourWrites.recordWrite(id, deleted.get().getUsername());
+        // Access токены и refresh-сессии удалённого пользователя перестают действовать сразу
+        tokenGenerationService.revokeAll(deleted.get().getUsername());
+        userDetailsService.evict(deleted.get().getUsername());
+        userLookupService.evict(id);
+        return true;
     }
 
+    public Optional<User> updateRoles(Long id, List<String> roles) {
+        Optional<User> updated = transactionTemplate.execute(status -> authRepository.findWithRolesById(id)
+                .map(user -> {
+                    user.setRoles(List.copyOf(roles));
+                    User saved = authRepository.saveAndFlush(user);
+                    userEventOutbox.record(UserOutboxEvent.Type.ROLES_CHANGED, saved);
+                    return saved;
+                }));
+        if (updated == null) {
+            return Optional.empty();
+        }
+        updated.ifPresent(user -> {
+            readYourWrites.recordWrite(id, user.getUsername());
+            userDetailsService.evict(user.getUsername());
+            userLookupService.evict(id);
+        });
+        return updated;
+    }
 }
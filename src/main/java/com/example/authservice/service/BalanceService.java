@@ -0,0 +1,158 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.BalanceLedgerEntry;
+import com.example.authservice.entity.UserBalance;
+import com.example.authservice.exceptions.BalanceNotFoundException;
+import com.example.authservice.exceptions.InsufficientFundsException;
+import com.example.authservice.payload.BalanceOperation;
+import com.example.authservice.payload.BalanceResponse;
+import com.example.authservice.repository.BalanceLedgerRepository;
+import com.example.authservice.repository.BalanceRepository;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Баланс хранится в копейках (long); BigDecimal только на границе API
+@Service
+public class BalanceService {
+
+    private static final int SCALE = 2;
+    private static final String INSERT_LEDGER_SQL =
+            "insert into balance_ledger (user_id, amount_minor, reference, created_at) "
+                    + "values (:userId, :amount, :reference, :createdAt)";
+
+    private final BalanceRepository balanceRepository;
+    private final BalanceLedgerRepository ledgerRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BalanceService(BalanceRepository balanceRepository, BalanceLedgerRepository ledgerRepository,
+                          NamedParameterJdbcTemplate jdbcTemplate) {
+        this.balanceRepository = balanceRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(readOnly = true)
+    public BalanceResponse getBalance(Long userId) {
+        UserBalance balance = balanceRepository.findById(userId)
+                .orElseThrow(() -> notFound(userId));
+        return new BalanceResponse(userId, fromMinor(balance.getAmountMinor()), balance.getVersion());
+    }
+
+    // Счёт открывается в транзакции создания пользователя
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void open(Long userId, long openingMinor) {
+        balanceRepository.save(new UserBalance(userId, openingMinor, 0));
+        if (openingMinor != 0) {
+            ledgerRepository.save(new BalanceLedgerEntry(null, userId, openingMinor, "opening", Instant.now()));
+        }
+    }
+
+    // Журнал остаётся, удаляется только материализованный баланс
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void close(Long userId) {
+        balanceRepository.findById(userId).ifPresent(balanceRepository::delete);
+    }
+
+    @Transactional
+    public BalanceResponse credit(Long userId, BigDecimal amount, String reference) {
+        long minor = toPositiveMinor(amount);
+        if (balanceRepository.credit(userId, minor) == 0) {
+            throw notFound(userId);
+        }
+        ledgerRepository.save(new BalanceLedgerEntry(null, userId, minor, reference, Instant.now()));
+        return getBalance(userId);
+    }
+
+    @Transactional
+    public BalanceResponse debit(Long userId, BigDecimal amount, String reference) {
+        long minor = toPositiveMinor(amount);
+        if (balanceRepository.debit(userId, minor) == 0) {
+            throw balanceRepository.existsById(userId)
+                    ? new InsufficientFundsException("Недостаточно средств на балансе пользователя " + userId)
+                    : notFound(userId);
+        }
+        ledgerRepository.save(new BalanceLedgerEntry(null, userId, -minor, reference, Instant.now()));
+        return getBalance(userId);
+    }
+
+    // Пакетный расчёт: все операции пишутся в журнал одним JDBC-батчем, на каждого пользователя
+    // приходится один UPDATE с суммарной дельтой. Всё или ничего: при нехватке средств у любого
+    // пользователя откатывается весь пакет
+    @Transactional
+    public void settle(List<BalanceOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        // Сортировка по userId - одинаковый порядок блокировок строк у параллельных пакетов, без взаимоблокировок
+        Map<Long, Long> deltas = new TreeMap<>();
+        SqlParameterSource[] entries = new SqlParameterSource[operations.size()];
+        OffsetDateTime createdAt = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < operations.size(); i++) {
+            BalanceOperation operation = operations.get(i);
+            if (operation == null || operation.userId() == null) {
+                throw new IllegalArgumentException("userId обязателен в каждой операции");
+            }
+            long minor = toMinor(operation.amount());
+            deltas.merge(operation.userId(), minor, Long::sum);
+            entries[i] = new MapSqlParameterSource()
+                    .addValue("userId", operation.userId())
+                    .addValue("amount", minor)
+                    .addValue("reference", operation.reference())
+                    .addValue("createdAt", createdAt);
+        }
+
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            Long userId = delta.getKey();
+            long minor = delta.getValue();
+            int updated = minor >= 0
+                    ? balanceRepository.credit(userId, minor)
+                    : balanceRepository.debit(userId, -minor);
+            if (updated == 0) {
+                throw balanceRepository.existsById(userId)
+                        ? new InsufficientFundsException("Недостаточно средств на балансе пользователя " + userId)
+                        : notFound(userId);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_LEDGER_SQL, entries);
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Сумма обязательна");
+        }
+        try {
+            return amount.setScale(SCALE).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Сумма должна иметь не больше " + SCALE + " знаков после запятой");
+        }
+    }
+
+    private static long toPositiveMinor(BigDecimal amount) {
+        long minor = toMinor(amount);
+        if (minor <= 0) {
+            throw new IllegalArgumentException("Сумма должна быть положительной");
+        }
+        return minor;
+    }
+
+    private static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    private static BalanceNotFoundException notFound(Long userId) {
+        return new BalanceNotFoundException("Баланс пользователя " + userId + " не найден");
+    }
+}
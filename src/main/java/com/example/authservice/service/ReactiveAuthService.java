@@ -0,0 +1,179 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.exceptions.EmailAlreadyExistsException;
+import com.example.authservice.exceptions.UserAlreadyExistsException;
+import com.example.authservice.payload.AuthResponse;
+import com.example.authservice.payload.UserSummary;
+import com.example.authservice.repository.RedisRefreshTokenStore;
+import com.example.authservice.repository.ReactiveUserRepository;
+import com.example.authservice.security.CustomUserDetails;
+import com.example.authservice.security.CustomUserDetailsService;
+import com.example.authservice.security.LoginRateLimiter;
+import com.example.authservice.security.TokenGenerationService;
+import com.example.authservice.utils.JwtTokenProvider;
+import com.example.authservice.utils.OffloadingPasswordEncoder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Неблокирующий вариант AuthService для профиля reactive: R2DBC, реактивный Redis,
+// bcrypt на ограниченном пуле PasswordHashingExecutor
+@Service
+@Profile("reactive")
+public class ReactiveAuthService {
+
+    private final ReactiveUserRepository userRepository;
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final JwtTokenProvider tokenProvider;
+    private final RefreshTokenService refreshTokenService;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final CustomUserDetailsService userDetailsService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final TokenGenerationService tokenGenerationService;
+    // Для неизвестного пользователя пароль всё равно сверяется, чтобы время ответа не выдавало его отсутствие
+    private final Mono<String> dummyPasswordHash;
+
+    public ReactiveAuthService(ReactiveUserRepository userRepository, OffloadingPasswordEncoder passwordEncoder,
+                               JwtTokenProvider tokenProvider, RefreshTokenService refreshTokenService,
+                               ReactiveStringRedisTemplate redisTemplate, CustomUserDetailsService userDetailsService,
+                               LoginRateLimiter loginRateLimiter, TokenGenerationService tokenGenerationService) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.tokenProvider = tokenProvider;
+        this.refreshTokenService = refreshTokenService;
+        this.redisTemplate = redisTemplate;
+        this.userDetailsService = userDetailsService;
+        this.loginRateLimiter = loginRateLimiter;
+        this.tokenGenerationService = tokenGenerationService;
+        this.dummyPasswordHash = Mono.fromFuture(() -> passwordEncoder.encodeAsync("userNotFoundPassword")).cache();
+    }
+
+    // Ограничитель в режиме redis блокирующий, поэтому его вызовы уходят на boundedElastic
+    public Mono<AuthResponse> authenticate(String username, String password, String clientIp) {
+        return Mono.fromCallable(() -> loginRateLimiter.acquire(username, clientIp))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(permit -> verifyCredentials(username, password)
+                        .onErrorResume(BadCredentialsException.class, e -> Mono
+                                .fromRunnable(() -> loginRateLimiter.recordFailure(permit))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .then(Mono.<CustomUserDetails>error(e)))
+                        .flatMap(principal -> Mono
+                                .fromRunnable(() -> loginRateLimiter.recordSuccess(permit))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .thenReturn(principal)))
+                .flatMap(this::issueTokens);
+    }
+
+    private Mono<CustomUserDetails> verifyCredentials(String username, String password) {
+        return userRepository.findByUsername(username)
+                .flatMap(user -> matches(password, user.getPassword())
+                        .flatMap(matched -> {
+                            if (!matched) {
+                                return Mono.<CustomUserDetails>error(badCredentials());
+                            }
+                            return Mono.just(new CustomUserDetails(user));
+                        }))
+                .switchIfEmpty(Mono.defer(() -> dummyPasswordHash
+                        .flatMap(hash -> matches(password, hash))
+                        .then(Mono.<CustomUserDetails>error(badCredentials()))));
+    }
+
+    public Mono<User> createUser(User user) {
+        return createUserWithRole(user, "ROLE_USER");
+    }
+
+    public Mono<UserSummary> getUserById(Long id) {
+        return userRepository.findById(id)
+                .map(user -> new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.getRoles()));
+    }
+
+    private static BadCredentialsException badCredentials() {
+        return new BadCredentialsException("Неверное имя пользователя или пароль");
+    }
+
+    private Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+        // Продолжение уходит с потока хеширования, чтобы пул занимался только bcrypt
+        return Mono.fromFuture(() -> passwordEncoder.matchesAsync(rawPassword, encodedPassword))
+                .publishOn(Schedulers.parallel());
+    }
+
+    // Поколение при промахе локального кеша читается блокирующим GET, поэтому оно загружается
+    // на boundedElastic заранее; generateToken затем берёт его из кеша
+    private Mono<AuthResponse> issueTokens(CustomUserDetails principal) {
+        return Mono.fromCallable(() -> tokenGenerationService.current(principal.getUsername()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .publishOn(Schedulers.parallel())
+                .flatMap(generation -> issueTokens(principal, generation));
+    }
+
+    private Mono<AuthResponse> issueTokens(CustomUserDetails principal, long generation) {
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.getAuthorities());
+        String jwt = tokenProvider.generateToken(authentication);
+
+        RefreshTokenService.NewRefreshSession session = refreshTokenService.newSession();
+        return redisTemplate.opsForValue()
+                .set(RedisRefreshTokenStore.key(session.familyId()),
+                        RedisRefreshTokenStore.value(session.tokenHash(), generation, principal.getUsername()),
+                        refreshTokenService.getRefreshExpiration())
+                .thenReturn(AuthResponse.builder()
+                        .token(jwt)
+                        .username(principal.getUsername())
+                        .refreshToken(session.refreshToken())
+                        .build());
+    }
+
+    private Mono<User> createUserWithRole(User user, String role) {
+        return Mono.fromFuture(() -> passwordEncoder.encodeAsync(user.getPassword()))
+                .publishOn(Schedulers.parallel())
+                .flatMap(encodedPassword -> {
+                    User newUser = new User();
+                    newUser.setUsername(user.getUsername());
+                    newUser.setPassword(encodedPassword);
+                    newUser.setEmail(user.getEmail());
+                    return userRepository.insert(newUser, role);
+                })
+                .onErrorResume(DataIntegrityViolationException.class, e -> translateUniqueViolation(e, user))
+                .doOnNext(saved -> userDetailsService.evict(saved.getUsername()));
+    }
+
+    private Mono<User> translateUniqueViolation(DataIntegrityViolationException e, User user) {
+        String message = violationMessage(e);
+        if (message.contains(User.USERNAME_CONSTRAINT)) {
+            return Mono.error(new UserAlreadyExistsException("Пользователь с таким именем уже существует."));
+        }
+        if (message.contains(User.EMAIL_CONSTRAINT)) {
+            return Mono.error(new EmailAlreadyExistsException("Пользователь с такой электронной почтой уже существует."));
+        }
+
+        // Драйвер не сообщил имя ограничения - уточняем запросами, только на пути ошибки
+        return userRepository.existsByUsername(user.getUsername())
+                .zipWith(userRepository.existsByEmail(user.getEmail()))
+                .flatMap(taken -> {
+                    if (taken.getT1()) {
+                        return Mono.<User>error(new UserAlreadyExistsException("Пользователь с таким именем уже существует."));
+                    }
+                    if (taken.getT2()) {
+                        return Mono.<User>error(new EmailAlreadyExistsException("Пользователь с такой электронной почтой уже существует."));
+                    }
+                    return Mono.<User>error(e);
+                });
+    }
+
+    private static String violationMessage(Throwable e) {
+        StringBuilder message = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null) {
+                message.append(cause.getMessage().toLowerCase()).append('\n');
+            }
+        }
+        return message.toString();
+    }
+}
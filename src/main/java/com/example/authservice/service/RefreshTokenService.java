@@ -0,0 +1,111 @@
+package com.example.authservice.service;
+
+import com.example.authservice.exceptions.InvalidRefreshTokenException;
+import com.example.authservice.repository.RefreshRotation;
+import com.example.authservice.repository.RefreshTokenStore;
+import com.example.authservice.security.TokenGenerationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Refresh-токен - непрозрачная строка <familyId>.<secret>. В хранилище лежит только
+// укороченный SHA-256 от secret текущего токена семейства, сам токен не сохраняется
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenStore refreshTokenStore;
+    private final TokenGenerationService tokenGenerationService;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration refreshExpiration;
+
+    public RefreshTokenService(RefreshTokenStore refreshTokenStore, TokenGenerationService tokenGenerationService,
+                               @Value("${jwt.refresh-expiration}") long refreshExpirationSeconds) {
+        this.refreshTokenStore = refreshTokenStore;
+        this.tokenGenerationService = tokenGenerationService;
+        this.refreshExpiration = Duration.ofSeconds(refreshExpirationSeconds);
+    }
+
+    public String issue(String username) {
+        NewRefreshSession session = newSession();
+        refreshTokenStore.create(session.familyId(), session.tokenHash(), username,
+                tokenGenerationService.current(username), refreshExpiration);
+        return session.refreshToken();
+    }
+
+    // Сессия без записи в хранилище - для вызывающих, которые пишут её сами (реактивный стек)
+    public NewRefreshSession newSession() {
+        String familyId = randomToken(16);
+        String secret = randomToken(32);
+        return new NewRefreshSession(familyId, hash(secret), familyId + "." + secret);
+    }
+
+    public Duration getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
+    public RotatedRefreshToken rotate(String refreshToken) {
+        int sep = refreshToken != null ? refreshToken.indexOf('.') : -1;
+        if (sep <= 0 || sep == refreshToken.length() - 1) {
+            throw new InvalidRefreshTokenException("Неверный refresh токен");
+        }
+        String familyId = refreshToken.substring(0, sep);
+        String secret = refreshToken.substring(sep + 1);
+        String newSecret = randomToken(32);
+
+        RefreshRotation rotation = refreshTokenStore.rotate(familyId, hash(secret), hash(newSecret), refreshExpiration);
+        switch (rotation.status()) {
+            case ROTATED:
+                // Сессия пережила отзыв всех сессий пользователя - удаляем, а не продлеваем
+                if (tokenGenerationService.isStale(rotation.username(), rotation.generation())) {
+                    refreshTokenStore.delete(familyId);
+                    throw new InvalidRefreshTokenException("Сессия отозвана");
+                }
+                return new RotatedRefreshToken(rotation.username(), familyId + "." + newSecret);
+            case REUSED:
+                log.warn("Повторное использование refresh токена, сессия {} отозвана", familyId);
+                throw new InvalidRefreshTokenException("Refresh токен уже использован, сессия отозвана");
+            default:
+                throw new InvalidRefreshTokenException("Refresh токен истек или отозван");
+        }
+    }
+
+    public void revokeSession(String refreshToken) {
+        int sep = refreshToken != null ? refreshToken.indexOf('.') : -1;
+        if (sep > 0) {
+            refreshTokenStore.delete(refreshToken.substring(0, sep));
+        }
+    }
+
+    private String randomToken(int bytes) {
+        byte[] buffer = new byte[bytes];
+        random.nextBytes(buffer);
+        return ENCODER.encodeToString(buffer);
+    }
+
+    private static String hash(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return ENCODER.encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record RotatedRefreshToken(String username, String refreshToken) {
+    }
+
+    public record NewRefreshSession(String familyId, String tokenHash, String refreshToken) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.authservice.service;
+
+import com.example.authservice.security.TokenGenerationService;
+import com.example.authservice.security.TokenRevocationService;
+import com.example.authservice.utils.JwtVerifier;
+import com.example.authservice.utils.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+// Выход из одной сессии отзывает её access токен (jti) и refresh-сессию; выход отовсюду и
+// админский отзыв увеличивают поколение токенов пользователя - O(1) при любом числе сессий
+@Service
+public class SessionService {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtVerifier jwtVerifier;
+    private final TokenRevocationService tokenRevocationService;
+    private final TokenGenerationService tokenGenerationService;
+    private final RefreshTokenService refreshTokenService;
+    private final UserLookupService userLookupService;
+
+    public SessionService(JwtVerifier jwtVerifier, TokenRevocationService tokenRevocationService,
+                          TokenGenerationService tokenGenerationService, RefreshTokenService refreshTokenService,
+                          UserLookupService userLookupService) {
+        this.jwtVerifier = jwtVerifier;
+        this.tokenRevocationService = tokenRevocationService;
+        this.tokenGenerationService = tokenGenerationService;
+        this.refreshTokenService = refreshTokenService;
+        this.userLookupService = userLookupService;
+    }
+
+    public boolean logout(String tokenHeader, String refreshToken) {
+        Optional<VerifiedToken> token = verify(tokenHeader);
+        token.ifPresent(verified -> {
+            tokenRevocationService.revoke(verified);
+            if (refreshToken != null) {
+                refreshTokenService.revokeSession(refreshToken);
+            }
+        });
+        return token.isPresent();
+    }
+
+    public boolean logoutEverywhere(String tokenHeader) {
+        Optional<VerifiedToken> token = verify(tokenHeader);
+        token.ifPresent(verified -> tokenGenerationService.revokeAll(verified.subject()));
+        return token.isPresent();
+    }
+
+    public boolean revokeAllSessions(Long userId) {
+        return userLookupService.getById(userId)
+                .map(user -> tokenGenerationService.revokeAll(user.getUsername()))
+                .isPresent();
+    }
+
+    // Уже отозванным токеном выйти нельзя: он ничего не отзывает и не должен подтверждать владение
+    private Optional<VerifiedToken> verify(String tokenHeader) {
+        if (tokenHeader == null || !tokenHeader.startsWith(BEARER_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            VerifiedToken token = jwtVerifier.verify(tokenHeader.substring(BEARER_PREFIX.length()));
+            return tokenRevocationService.isRevoked(token) ? Optional.empty() : Optional.of(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.authservice.service;
+
+import com.example.authservice.repository.TokenOperation;
+import com.example.authservice.repository.TokenStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Журнал выданных access токенов для аудита (jti -> имя пользователя на время жизни токена).
+// Запись включается token-registry.register-access-tokens=true и уходит в хранилище пачками;
+// чтение - lookup по многим jti за один MGET. На пути запроса реестр не используется
+@Service
+public class TokenRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRegistry.class);
+
+    private final TokenStore tokenStore;
+    private final BlockingQueue<TokenOperation> queue;
+    // Операции, ещё не записанные в хранилище: lookup на этом узле видит их сразу
+    private final Map<String, TokenOperation> pending = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public TokenRegistry(TokenStore tokenStore,
+                         @Value("${token-registry.batch-size:256}") int batchSize,
+                         @Value("${token-registry.queue-capacity:10000}") int queueCapacity) {
+        this.tokenStore = tokenStore;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flusher = new Thread(this::runFlushLoop, "token-registry-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(1));
+        flush();
+    }
+
+    public void register(String tokenId, String username, Duration ttl) {
+        submit(TokenOperation.register(tokenId, username, ttl));
+    }
+
+    public void revoke(String tokenId) {
+        submit(TokenOperation.revoke(tokenId));
+    }
+
+    // tokenId -> username для зарегистрированных токенов, один round trip к хранилищу
+    public Map<String, String> lookup(Collection<String> tokenIds) {
+        Map<String, String> result = new HashMap<>();
+        List<String> remote = new ArrayList<>();
+        for (String tokenId : new LinkedHashSet<>(tokenIds)) {
+            TokenOperation op = pending.get(tokenId);
+            if (op == null) {
+                remote.add(tokenId);
+            } else if (op.type() == TokenOperation.Type.REGISTER) {
+                result.put(tokenId, op.username());
+            }
+        }
+
+        if (!remote.isEmpty()) {
+            List<String> usernames = tokenStore.multiGet(remote);
+            for (int i = 0; i < remote.size(); i++) {
+                String username = usernames.get(i);
+                if (username != null) {
+                    result.put(remote.get(i), username);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void flush() {
+        List<TokenOperation> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            apply(batch);
+            batch.clear();
+        }
+    }
+
+    private void submit(TokenOperation op) {
+        pending.put(op.tokenId(), op);
+        if (!queue.offer(op)) {
+            log.warn("Очередь реестра токенов переполнена, операция выполняется синхронно");
+            apply(List.of(op));
+        }
+    }
+
+    // Пока идёт запись очередной пачки, новые операции копятся в очереди и уходят следующим pipeline
+    private void runFlushLoop() {
+        List<TokenOperation> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                TokenOperation first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<TokenOperation> batch) {
+        try {
+            tokenStore.apply(batch);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать {} операций реестра токенов", batch.size(), e);
+        } finally {
+            for (TokenOperation op : batch) {
+                pending.remove(op.tokenId(), op);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.entity.UserOutboxEvent;
+import com.example.authservice.repository.UserOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class UserEventOutbox {
+
+    private final UserOutboxRepository outboxRepository;
+
+    public UserEventOutbox(UserOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    // Только внутри транзакции изменения пользователя: событие и изменение фиксируются вместе
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(UserOutboxEvent.Type type, User user) {
+        List<String> roles = user.getRoles() != null ? user.getRoles() : List.of();
+        outboxRepository.save(new UserOutboxEvent(null, type, user.getId(), user.getUsername(), user.getEmail(),
+                String.join(",", roles), Instant.now()));
+    }
+}
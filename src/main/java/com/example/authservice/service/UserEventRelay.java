@@ -0,0 +1,158 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.UserOutboxEvent;
+import com.example.authservice.payload.UserEvent;
+import com.example.authservice.repository.UserOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Публикует outbox пачками: все события пачки отправляются асинхронно, продюсер собирает их
+// в сжатые батчи, и только после подтверждения всех отправок строки удаляются в той же транзакции.
+// При сбое транзакция откатывается и пачка уходит повторно - доставка at-least-once.
+// Цикл идёт на собственном потоке: ожидание Kafka (до send-timeout-ms на пачку) не задерживает
+// общий планировщик @Scheduled, на котором обновляются отзывы токенов и ключи подписи
+@Component
+@ConditionalOnProperty(name = "user-events.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class UserEventRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventRelay.class);
+
+    private final UserOutboxRepository outboxRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final int maxBatchesPerRun;
+    private final long intervalMs;
+    private final ScheduledExecutorService scheduler;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+
+    public UserEventRelay(UserOutboxRepository outboxRepository, KafkaTemplate<String, String> kafkaTemplate,
+                          TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${user-events.topic:auth.user-events}") String topic,
+                          @Value("${user-events.relay.batch-size:500}") int batchSize,
+                          @Value("${user-events.relay.send-timeout-ms:10000}") long sendTimeoutMs,
+                          @Value("${user-events.relay.max-batches-per-run:20}") int maxBatchesPerRun,
+                          @Value("${user-events.relay.interval-ms:500}") long intervalMs) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.intervalMs = intervalMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-event-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publishedCounter = Counter.builder("auth.user-events.published")
+                .description("События пользователей, опубликованные в Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("auth.user-events.failed")
+                .description("Пачки outbox, которые не удалось опубликовать")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::relay, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    public void relay() {
+        try {
+            // Полная пачка - вероятно, есть ещё; разбираем хвост без ожидания следующего цикла,
+            // но не больше max-batches-per-run пачек, чтобы цикл не занимал поток бесконечно
+            int published;
+            int batches = 0;
+            do {
+                published = publishBatch();
+            } while (published == batchSize && ++batches < maxBatchesPerRun);
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            log.warn("Не удалось опубликовать события пользователей, повтор на следующем цикле", e);
+        }
+    }
+
+    public int publishBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<UserOutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(batch.size());
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (UserOutboxEvent event : batch) {
+                sends.add(kafkaTemplate.send(topic, String.valueOf(event.getUserId()), toJson(event)));
+                ids.add(event.getId());
+            }
+            kafkaTemplate.flush();
+            awaitAll(sends);
+
+            outboxRepository.deleteAllByIdInBatch(ids);
+            return batch.size();
+        });
+        int count = published != null ? published : 0;
+        publishedCounter.increment(count);
+        return count;
+    }
+
+    private void awaitAll(List<CompletableFuture<SendResult<String, String>>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Публикация событий прервана", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Kafka не подтвердила пачку событий", e);
+        }
+    }
+
+    private String toJson(UserOutboxEvent event) {
+        List<String> roles = event.getRoles() == null || event.getRoles().isEmpty()
+                ? List.of()
+                : Arrays.asList(event.getRoles().split(","));
+        UserEvent payload = new UserEvent(event.getId(), event.getType().name(), event.getUserId(),
+                event.getUsername(), event.getEmail(), roles, event.getCreatedAt());
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
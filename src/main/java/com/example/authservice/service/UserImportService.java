@@ -0,0 +1,305 @@
+package com.example.authservice.service;
+
+import com.example.authservice.exceptions.PasswordHashingUnavailableException;
+import com.example.authservice.payload.UserImportResult;
+import com.example.authservice.payload.UserImportRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.example.authservice.utils.OffloadingPasswordEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Импорт идёт пачками по chunk-size строк: пароли хешируются параллельно на пуле PasswordHashingExecutor, id выделяются
+// одним запросом к последовательности users.id, строки users, user_roles, user_balances и user_outbox пишутся JDBC-батчами
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+
+    private static final String ALLOCATE_IDS_SQL =
+            "select nextval(pg_get_serial_sequence('users', 'id')) from generate_series(1, :count)";
+    private static final String FIND_EXISTING_SQL =
+            "select username, email from users where username in (:usernames) or email in (:emails)";
+    private static final String INSERT_USER_SQL =
+            "insert into users (id, username, password, email) values (:id, :username, :password, :email)";
+    private static final String INSERT_ROLE_SQL =
+            "insert into user_roles (user_id, role) values (:userId, :role)";
+    private static final String INSERT_BALANCE_SQL =
+            "insert into user_balances (user_id, amount_minor, version) values (:userId, :amount, 0)";
+    private static final String INSERT_LEDGER_SQL =
+            "insert into balance_ledger (user_id, amount_minor, reference, created_at) "
+                    + "values (:userId, :amount, 'opening', :createdAt)";
+    private static final String INSERT_OUTBOX_SQL =
+            "insert into user_outbox (type, user_id, username, email, roles, created_at) "
+                    + "values ('USER_CREATED', :userId, :username, :email, :role, :createdAt)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int hashingWindow;
+
+    public UserImportService(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             OffloadingPasswordEncoder passwordEncoder, ObjectMapper objectMapper,
+                             @Value("${user-import.chunk-size:1000}") int chunkSize,
+                             @Value("${user-import.hashing-parallelism:0}") int hashingParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.hashingWindow = hashingParallelism > 0 ? hashingParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public void importUsers(InputStream body, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(new ImportRow(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk);
+                writeResults(chunk, out);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk);
+            writeResults(chunk, out);
+        }
+    }
+
+    private void importChunk(List<ImportRow> chunk) {
+        parseRows(chunk);
+        rejectDuplicates(chunk);
+        hashPasswords(chunk);
+
+        List<ImportRow> accepted = pending(chunk);
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Long> ids = allocateIds(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).id = ids.get(i);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> insertRows(accepted));
+
+            for (ImportRow row : accepted) {
+                row.result(UserImportResult.Status.CREATED, null);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Не удалось записать пачку из {} пользователей", accepted.size(), e);
+            for (ImportRow row : accepted) {
+                row.result(UserImportResult.Status.FAILED, "Ошибка записи пачки, повторите строку");
+            }
+        }
+    }
+
+    // Postgres-специфичный запрос; в тестах на H2 метод переопределяется
+    protected List<Long> allocateIds(int count) {
+        return jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, new MapSqlParameterSource("count", count), Long.class);
+    }
+
+    private void parseRows(List<ImportRow> chunk) {
+        for (ImportRow row : chunk) {
+            try {
+                row.request = objectMapper.readValue(row.raw, UserImportRow.class);
+            } catch (JsonProcessingException e) {
+                row.result(UserImportResult.Status.INVALID, "Некорректный JSON");
+                continue;
+            }
+            if (isBlank(row.request.getUsername()) || isBlank(row.request.getPassword())
+                    || isBlank(row.request.getEmail())) {
+                row.result(UserImportResult.Status.INVALID, "username, password и email обязательны");
+                continue;
+            }
+            try {
+                row.openingBalance = row.request.getBalance() != null ? BalanceService.toMinor(row.request.getBalance()) : 0;
+            } catch (IllegalArgumentException e) {
+                row.result(UserImportResult.Status.INVALID, e.getMessage());
+            }
+        }
+    }
+
+    // Дубликаты внутри пачки и с уже существующими пользователями отсекаются до вставки,
+    // иначе одно нарушение уникальности откатило бы весь батч
+    private void rejectDuplicates(List<ImportRow> chunk) {
+        List<ImportRow> rows = pending(chunk);
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : rows) {
+            usernames.add(row.request.getUsername());
+            emails.add(row.request.getEmail());
+        }
+
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("usernames", usernames)
+                .addValue("emails", emails);
+        jdbcTemplate.query(FIND_EXISTING_SQL, params, (RowCallbackHandler) rs -> {
+            takenUsernames.add(rs.getString("username"));
+            takenEmails.add(rs.getString("email"));
+        });
+
+        for (ImportRow row : rows) {
+            if (!takenUsernames.add(row.request.getUsername())) {
+                row.result(UserImportResult.Status.CONFLICT, "Пользователь с таким именем уже существует.");
+            } else if (!takenEmails.add(row.request.getEmail())) {
+                row.result(UserImportResult.Status.CONFLICT, "Пользователь с такой электронной почтой уже существует.");
+            }
+        }
+    }
+
+    // Очередь пула хеширования ограничена и общая с логинами, поэтому пачка ставится в неё
+    // окнами по hashing-parallelism паролей, а не целиком
+    private void hashPasswords(List<ImportRow> chunk) {
+        List<ImportRow> rows = pending(chunk);
+        for (int from = 0; from < rows.size(); from += hashingWindow) {
+            List<ImportRow> window = rows.subList(from, Math.min(from + hashingWindow, rows.size()));
+            List<CompletableFuture<String>> hashes = new ArrayList<>(window.size());
+            for (ImportRow row : window) {
+                hashes.add(encode(row.request.getPassword()));
+            }
+
+            for (int i = 0; i < window.size(); i++) {
+                ImportRow row = window.get(i);
+                try {
+                    row.encodedPassword = hashes.get(i).join();
+                } catch (CompletionException e) {
+                    String error = e.getCause() instanceof PasswordHashingUnavailableException
+                            ? e.getCause().getMessage()
+                            : "Не удалось захешировать пароль";
+                    row.result(UserImportResult.Status.FAILED, error);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<String> encode(String password) {
+        try {
+            return passwordEncoder.encodeAsync(password);
+        } catch (PasswordHashingUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void insertRows(List<ImportRow> rows) {
+        SqlParameterSource[] users = new SqlParameterSource[rows.size()];
+        SqlParameterSource[] roles = new SqlParameterSource[rows.size()];
+        SqlParameterSource[] balances = new SqlParameterSource[rows.size()];
+        List<SqlParameterSource> openings = new ArrayList<>();
+        SqlParameterSource[] events = new SqlParameterSource[rows.size()];
+        OffsetDateTime createdAt = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            users[i] = new MapSqlParameterSource()
+                    .addValue("id", row.id)
+                    .addValue("username", row.request.getUsername())
+                    .addValue("password", row.encodedPassword)
+                    .addValue("email", row.request.getEmail());
+            roles[i] = new MapSqlParameterSource()
+                    .addValue("userId", row.id)
+                    .addValue("role", DEFAULT_ROLE);
+            balances[i] = new MapSqlParameterSource()
+                    .addValue("userId", row.id)
+                    .addValue("amount", row.openingBalance);
+            if (row.openingBalance != 0) {
+                openings.add(new MapSqlParameterSource()
+                        .addValue("userId", row.id)
+                        .addValue("amount", row.openingBalance)
+                        .addValue("createdAt", createdAt));
+            }
+            events[i] = new MapSqlParameterSource()
+                    .addValue("userId", row.id)
+                    .addValue("username", row.request.getUsername())
+                    .addValue("email", row.request.getEmail())
+                    .addValue("role", DEFAULT_ROLE)
+                    .addValue("createdAt", createdAt);
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, users);
+        jdbcTemplate.batchUpdate(INSERT_ROLE_SQL, roles);
+        jdbcTemplate.batchUpdate(INSERT_BALANCE_SQL, balances);
+        if (!openings.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LEDGER_SQL, openings.toArray(SqlParameterSource[]::new));
+        }
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, events);
+    }
+
+    private void writeResults(List<ImportRow> chunk, OutputStream out) throws IOException {
+        for (ImportRow row : chunk) {
+            out.write(objectMapper.writeValueAsBytes(row.result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static List<ImportRow> pending(List<ImportRow> chunk) {
+        List<ImportRow> rows = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.result == null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static final class ImportRow {
+        private final int line;
+        private final String raw;
+        private UserImportRow request;
+        private String encodedPassword;
+        private long openingBalance;
+        private Long id;
+        private UserImportResult result;
+
+        private ImportRow(int line, String raw) {
+            this.line = line;
+            this.raw = raw;
+        }
+
+        private void result(UserImportResult.Status status, String error) {
+            this.result = UserImportResult.builder()
+                    .line(line)
+                    .username(request != null ? request.getUsername() : null)
+                    .status(status)
+                    .id(status == UserImportResult.Status.CREATED ? id : null)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.authservice.service;
+
+import com.example.authservice.exceptions.LookupBatchTooLargeException;
+import com.example.authservice.payload.UserLookupResponse;
+import com.example.authservice.payload.UserSummary;
+import com.example.authservice.repository.AuthRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+// Кеш UserSummary по id для getById и пакетного поиска. Промахи пакета дочитываются одним запросом
+// с IN; одновременные промахи по одному id Caffeine сводит к одной загрузке
+@Service
+public class UserLookupService {
+
+    private final AuthRepository authRepository;
+    private final LoadingCache<Long, UserSummary> viewsById;
+    private final int maxBatchSize;
+
+    public UserLookupService(AuthRepository authRepository, MeterRegistry meterRegistry,
+                             @Value("${user-lookup.cache.max-size:50000}") long maxSize,
+                             @Value("${user-lookup.cache.ttl-seconds:60}") long ttlSeconds,
+                             @Value("${user-lookup.max-batch-size:500}") int maxBatchSize) {
+        this.authRepository = authRepository;
+        this.maxBatchSize = maxBatchSize;
+        this.viewsById = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(new CacheLoader<Long, UserSummary>() {
+                    @Override
+                    public UserSummary load(Long id) {
+                        return authRepository.findViewById(id).orElse(null);
+                    }
+
+                    @Override
+                    public Map<Long, UserSummary> loadAll(Set<? extends Long> ids) {
+                        return byId(authRepository.findViewsByIds(ids));
+                    }
+                }), "userViews");
+    }
+
+    public Optional<UserSummary> getById(Long id) {
+        return Optional.ofNullable(viewsById.get(id));
+    }
+
+    public UserLookupResponse lookup(Collection<Long> ids, Collection<String> usernames) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids != null ? ids : List.of());
+        Set<String> uniqueUsernames = new LinkedHashSet<>(usernames != null ? usernames : List.of());
+        uniqueIds.remove(null);
+        uniqueUsernames.remove(null);
+        if (uniqueIds.size() + uniqueUsernames.size() > maxBatchSize) {
+            throw new LookupBatchTooLargeException("Не больше " + maxBatchSize + " ключей за запрос");
+        }
+
+        Map<Long, UserSummary> foundById = uniqueIds.isEmpty() ? Map.of() : viewsById.getAll(uniqueIds);
+
+        Map<String, UserSummary> foundByUsername = new HashMap<>();
+        if (!uniqueUsernames.isEmpty()) {
+            for (UserSummary view : authRepository.findViewsByUsernames(uniqueUsernames)) {
+                foundByUsername.put(view.getUsername(), view);
+                viewsById.put(view.getId(), view);
+            }
+        }
+        return new UserLookupResponse(foundById, foundByUsername);
+    }
+
+    // После изменения пользователя, когда транзакция уже зафиксирована
+    public void evict(Long id) {
+        viewsById.invalidate(id);
+    }
+
+    private static Map<Long, UserSummary> byId(List<UserSummary> views) {
+        Map<Long, UserSummary> result = new HashMap<>(views.size() * 2);
+        for (UserSummary view : views) {
+            result.put(view.getId(), view);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.authservice.service;
+
+import com.example.authservice.payload.UserPage;
+import com.example.authservice.payload.UserSummary;
+import com.example.authservice.repository.AuthRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+public class UserQueryService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int FLUSH_EVERY = 500;
+
+    private final AuthRepository authRepository;
+    private final ObjectMapper objectMapper;
+
+    public UserQueryService(AuthRepository authRepository, ObjectMapper objectMapper) {
+        this.authRepository = authRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Keyset-пагинация по id: стоимость запроса не растёт с номером страницы, в отличие от OFFSET
+    @Transactional(readOnly = true)
+    public UserPage getPage(long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<UserSummary> items = authRepository.findSummariesAfter(afterId, PageRequest.of(0, pageSize));
+        if (items.isEmpty()) {
+            return new UserPage(items, null);
+        }
+
+        Map<Long, UserSummary> byId = new HashMap<>();
+        for (UserSummary item : items) {
+            byId.put(item.getId(), item);
+        }
+        for (Object[] row : authRepository.findRolesByUserIds(byId.keySet())) {
+            byId.get((Long) row[0]).getRoles().add((String) row[1]);
+        }
+
+        Long nextAfterId = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+        return new UserPage(items, nextAfterId);
+    }
+
+    // Пишет JSON-массив по мере чтения курсора; в памяти держится только текущий пользователь
+    @Transactional(readOnly = true)
+    public void writeAllUsers(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.writeStartArray();
+
+        try (Stream<Object[]> rows = authRepository.streamSummariesWithRoles()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            UserSummary current = null;
+            int written = 0;
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Long id = (Long) row[0];
+                if (current == null || !current.getId().equals(id)) {
+                    if (current != null) {
+                        generator.writeObject(current);
+                        if (++written % FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    }
+                    current = new UserSummary(id, (String) row[1], (String) row[2]);
+                }
+                if (row[3] != null) {
+                    current.getRoles().add((String) row[3]);
+                }
+            }
+            if (current != null) {
+                generator.writeObject(current);
+            }
+        }
+
+        generator.writeEndArray();
+        generator.flush();
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.authservice.utils;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Компактный access токен. Это обычный JWS, его проверяет тот же jjwt-парсер, но claims короче:
+// роли - битовая маска r, поколение - g, jti - 16 случайных байт вместо UUID.
+// Кодирование обходится без Claims, Date и JSON-сериализатора: payload пишется сразу в байтовый
+// буфер потока, заголовок кодируется один раз на ключ. На виртуальных потоках буферы живут
+// один запрос, и выигрыш сводится к отсутствию промежуточных объектов
+@Component
+public class CompactJwtEncoder {
+
+    public static final String ROLES_CLAIM = "r";
+    public static final String GENERATION_CLAIM = "g";
+
+    // Номер бита - позиция в списке. Список только дополняется, иначе выпущенные токены сменят роли
+    static final List<String> ROLE_BITS = List.of("ROLE_USER", "ROLE_ADMIN");
+    private static final List<List<String>> ROLES_BY_MASK = rolesByMask();
+
+    private static final byte[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final String ECDSA_ALGORITHM = "SHA256withECDSAinP1363Format";
+
+    private final JwtKeyManager keyManager;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+    private volatile EncodedHeader header;
+
+    public CompactJwtEncoder(JwtKeyManager keyManager) {
+        this.keyManager = keyManager;
+    }
+
+    public static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] id = new byte[22];
+        int length = 0;
+        for (int half = 0; half < 2; half++) {
+            long bits = random.nextLong();
+            for (int i = 0; i < 11 && length < id.length; i++) {
+                id[length++] = BASE64URL[(int) (bits & 63)];
+                bits >>>= 6;
+            }
+        }
+        return new String(id, StandardCharsets.ISO_8859_1);
+    }
+
+    // iat и exp - секунды эпохи, как в claims JWT
+    public String encode(String subject, String tokenId, Collection<? extends GrantedAuthority> authorities,
+                         long generation, long issuedAt, long expiresAt) {
+        SigningMaterial material = keyManager.currentSigningMaterial();
+        EncodedHeader encodedHeader = header(material);
+        Buffers b = buffers.get();
+
+        b.jsonLength = 0;
+        b.appendJson("{\"sub\":");
+        b.appendJsonString(subject);
+        b.appendJson(",\"jti\":");
+        b.appendJsonString(tokenId);
+        b.appendJson(",\"iat\":");
+        b.appendJsonLong(issuedAt);
+        b.appendJson(",\"exp\":");
+        b.appendJsonLong(expiresAt);
+        long mask = roleMask(authorities);
+        if (mask >= 0) {
+            b.appendJson(",\"" + ROLES_CLAIM + "\":");
+            b.appendJsonLong(mask);
+        } else {
+            // Роль вне ROLE_BITS - прежний формат, чтобы её не потерять
+            b.appendJson(",\"roles\":");
+            b.appendJsonString(joinRoles(authorities));
+        }
+        b.appendJson(",\"" + GENERATION_CLAIM + "\":");
+        b.appendJsonLong(generation);
+        b.appendJson("}");
+
+        b.tokenLength = 0;
+        b.appendToken(encodedHeader.segment(), encodedHeader.segment().length);
+        b.appendToken((byte) '.');
+        b.appendBase64(b.json, b.jsonLength);
+
+        int signatureLength = sign(b, material);
+        b.appendToken((byte) '.');
+        b.appendBase64(b.signature, signatureLength);
+        return new String(b.token, 0, b.tokenLength, StandardCharsets.ISO_8859_1);
+    }
+
+    public static List<String> rolesOf(long mask) {
+        if (mask >= 0 && mask < ROLES_BY_MASK.size()) {
+            return ROLES_BY_MASK.get((int) mask);
+        }
+        return decodeMask(mask);
+    }
+
+    private static long roleMask(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            int bit = ROLE_BITS.indexOf(authority.getAuthority());
+            if (bit < 0) {
+                return -1;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    private static String joinRoles(Collection<? extends GrantedAuthority> authorities) {
+        StringBuilder roles = new StringBuilder();
+        for (GrantedAuthority authority : authorities) {
+            if (!roles.isEmpty()) {
+                roles.append(',');
+            }
+            roles.append(authority.getAuthority());
+        }
+        return roles.toString();
+    }
+
+    private static int sign(Buffers b, SigningMaterial material) {
+        try {
+            if (material.algorithm() == SignatureAlgorithm.ES256) {
+                if (b.ecdsa == null) {
+                    b.ecdsa = Signature.getInstance(ECDSA_ALGORITHM);
+                }
+                if (b.ecdsaKey != material.key()) {
+                    b.ecdsa.initSign((PrivateKey) material.key());
+                    b.ecdsaKey = material.key();
+                }
+                b.ecdsa.update(b.token, 0, b.tokenLength);
+                return b.ecdsa.sign(b.signature, 0, b.signature.length);
+            }
+
+            String jcaName = material.algorithm().getJcaName();
+            if (b.mac == null || !b.mac.getAlgorithm().equals(jcaName)) {
+                b.mac = Mac.getInstance(jcaName);
+                b.macKey = null;
+            }
+            if (b.macKey != material.key()) {
+                b.mac.init(material.key());
+                b.macKey = material.key();
+            }
+            b.mac.update(b.token, 0, b.tokenLength);
+            b.mac.doFinal(b.signature, 0);
+            return b.mac.getMacLength();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось подписать JWT", e);
+        }
+    }
+
+    private EncodedHeader header(SigningMaterial material) {
+        EncodedHeader current = header;
+        if (current != null && current.algorithm() == material.algorithm()
+                && Objects.equals(current.kid(), material.kid())) {
+            return current;
+        }
+        String json = material.kid() != null
+                ? "{\"kid\":\"" + material.kid() + "\",\"alg\":\"" + material.algorithm().getValue() + "\"}"
+                : "{\"alg\":\"" + material.algorithm().getValue() + "\"}";
+        byte[] segment = Base64.getUrlEncoder().withoutPadding().encode(json.getBytes(StandardCharsets.UTF_8));
+        current = new EncodedHeader(material.algorithm(), material.kid(), segment);
+        header = current;
+        return current;
+    }
+
+    private static List<List<String>> rolesByMask() {
+        List<List<String>> byMask = new ArrayList<>();
+        for (long mask = 0; mask < 1L << ROLE_BITS.size(); mask++) {
+            byMask.add(decodeMask(mask));
+        }
+        return List.copyOf(byMask);
+    }
+
+    // Биты без роли в ROLE_BITS (токен нового узла на старом) пропускаются
+    private static List<String> decodeMask(long mask) {
+        List<String> roles = new ArrayList<>();
+        for (int bit = 0; bit < ROLE_BITS.size(); bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                roles.add(ROLE_BITS.get(bit));
+            }
+        }
+        return List.copyOf(roles);
+    }
+
+    private record EncodedHeader(SignatureAlgorithm algorithm, String kid, byte[] segment) {
+    }
+
+    private static final class Buffers {
+        byte[] json = new byte[256];
+        int jsonLength;
+        byte[] token = new byte[512];
+        int tokenLength;
+        final byte[] signature = new byte[64];
+
+        Mac mac;
+        Key macKey;
+        Signature ecdsa;
+        Key ecdsaKey;
+
+        // Только ASCII-литералы формата
+        void appendJson(String ascii) {
+            ensureJson(ascii.length());
+            for (int i = 0; i < ascii.length(); i++) {
+                json[jsonLength++] = (byte) ascii.charAt(i);
+            }
+        }
+
+        void appendJsonLong(long value) {
+            if (value < 0) {
+                // В claims токена отрицательных чисел не бывает
+                appendJson(Long.toString(value));
+                return;
+            }
+            ensureJson(19);
+            int start = jsonLength;
+            do {
+                json[jsonLength++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            for (int i = start, j = jsonLength - 1; i < j; i++, j--) {
+                byte digit = json[i];
+                json[i] = json[j];
+                json[j] = digit;
+            }
+        }
+
+        void appendJsonString(String value) {
+            // Худший случай: \\uXXXX на каждый символ
+            ensureJson(value.length() * 6 + 2);
+            json[jsonLength++] = '"';
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json[jsonLength++] = '\\';
+                    json[jsonLength++] = (byte) c;
+                } else if (c < 0x20) {
+                    json[jsonLength++] = '\\';
+                    json[jsonLength++] = 'u';
+                    json[jsonLength++] = '0';
+                    json[jsonLength++] = '0';
+                    json[jsonLength++] = (byte) Character.forDigit(c >> 4, 16);
+                    json[jsonLength++] = (byte) Character.forDigit(c & 15, 16);
+                } else if (c < 0x80) {
+                    json[jsonLength++] = (byte) c;
+                } else if (c < 0x800) {
+                    json[jsonLength++] = (byte) (0xC0 | (c >> 6));
+                    json[jsonLength++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    json[jsonLength++] = (byte) (0xF0 | (codePoint >> 18));
+                    json[jsonLength++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    json[jsonLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    json[jsonLength++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    json[jsonLength++] = (byte) (0xE0 | (c >> 12));
+                    json[jsonLength++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    json[jsonLength++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            json[jsonLength++] = '"';
+        }
+
+        void appendToken(byte value) {
+            ensureToken(1);
+            token[tokenLength++] = value;
+        }
+
+        void appendToken(byte[] bytes, int length) {
+            ensureToken(length);
+            System.arraycopy(bytes, 0, token, tokenLength, length);
+            tokenLength += length;
+        }
+
+        // base64url без выравнивания
+        void appendBase64(byte[] source, int length) {
+            ensureToken((length + 2) / 3 * 4);
+            int i = 0;
+            for (; i + 3 <= length; i += 3) {
+                int bits = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8 | (source[i + 2] & 0xFF);
+                token[tokenLength++] = BASE64URL[(bits >>> 18) & 63];
+                token[tokenLength++] = BASE64URL[(bits >>> 12) & 63];
+                token[tokenLength++] = BASE64URL[(bits >>> 6) & 63];
+                token[tokenLength++] = BASE64URL[bits & 63];
+            }
+            int remaining = length - i;
+            if (remaining == 1) {
+                int bits = (source[i] & 0xFF) << 16;
+                token[tokenLength++] = BASE64URL[(bits >>> 18) & 63];
+                token[tokenLength++] = BASE64URL[(bits >>> 12) & 63];
+            } else if (remaining == 2) {
+                int bits = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8;
+                token[tokenLength++] = BASE64URL[(bits >>> 18) & 63];
+                token[tokenLength++] = BASE64URL[(bits >>> 12) & 63];
+                token[tokenLength++] = BASE64URL[(bits >>> 6) & 63];
+            }
+        }
+
+        private void ensureJson(int extra) {
+            if (jsonLength + extra > json.length) {
+                json = Arrays.copyOf(json, Math.max(json.length * 2, jsonLength + extra));
+            }
+        }
+
+        private void ensureToken(int extra) {
+            if (tokenLength + extra > token.length) {
+                token = Arrays.copyOf(token, Math.max(token.length * 2, tokenLength + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.authservice.utils;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class JwtConfig {
+
+    @Bean
+    public SecretKey jwtSigningKey(@Value("${jwt.secret}") String jwtSecret) {
+        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // DefaultJwtParser неизменяем после build(), поэтому один экземпляр безопасно делить между потоками.
+    // Ключ проверки выбирается по alg/kid из заголовка токена
+    @Bean
+    public JwtParser jwtParser(JwtKeyManager jwtKeyManager) {
+        return Jwts.parserBuilder()
+                .setSigningKeyResolver(jwtKeyManager)
+                .build();
+    }
+}
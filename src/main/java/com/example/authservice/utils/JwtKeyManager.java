@@ -0,0 +1,324 @@
+package com.example.authservice.utils;
+
+import com.example.authservice.repository.SigningKeyStore;
+import com.example.authservice.repository.StoredSigningKey;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Набор ключей подписи ES256, общий для всех узлов через Redis. Новый ключ выпускается раз в
+// jwt.signing.rotation-interval и сначала только публикуется в JWKS: подписывать им узлы начинают
+// через publishLead (max-age JWKS плюс период обновления), когда его уже видят все потребители.
+// Для проверки остаются jwt.signing.retained-keys последних ключей, включая ещё не активный.
+// HS512-токены на общем jwt.secret принимаются только до jwt.signing.hmac-accepted-until (по умолчанию -
+// время жизни access-токена после первого перехода на ES256; момент перехода хранится рядом с ключами
+// и не сдвигается перезапусками), чтобы успели истечь выпущенные до перехода.
+// HS256 - тот же общий секрет с вдвое более короткой подписью для компактных токенов
+@Component
+public class JwtKeyManager extends SigningKeyResolverAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyManager.class);
+    private static final long MISSING_KID_RELOAD_INTERVAL_MS = 1000;
+    private static final int WINNER_KEY_WAIT_ATTEMPTS = 20;
+    private static final long WINNER_KEY_WAIT_MS = 100;
+    public static final Duration JWKS_MAX_AGE = Duration.ofMinutes(5);
+
+    private final SigningKeyStore signingKeyStore;
+    private final SecretKey hmacKey;
+    private final SignatureAlgorithm algorithm;
+    private final Duration rotationInterval;
+    private final Duration publishLead;
+    private final int retainedKeys;
+    private final long accessTokenSeconds;
+    // null - HMAC-подпись принимается всегда (сам узел подписывает HMAC)
+    private volatile Instant hmacAcceptedUntil;
+    // false, пока срок не прочитан из хранилища; до этого действует время жизни токена от старта узла
+    private volatile boolean hmacDeadlineSettled;
+
+    private volatile KeySet keySet = KeySet.EMPTY;
+    private final AtomicLong lastReload = new AtomicLong();
+
+    public JwtKeyManager(SigningKeyStore signingKeyStore, SecretKey jwtSigningKey,
+                         @Value("${jwt.signing.algorithm:ES256}") String algorithm,
+                         @Value("${jwt.signing.rotation-interval-hours:24}") long rotationIntervalHours,
+                         @Value("${jwt.signing.retained-keys:3}") int retainedKeys,
+                         @Value("${jwt.signing.hmac-accepted-until:}") String hmacAcceptedUntil,
+                         @Value("${jwt.expiration}") long accessTokenSeconds,
+                         @Value("${jwt.signing.refresh-interval-ms:60000}") long refreshIntervalMs) {
+        this.signingKeyStore = signingKeyStore;
+        this.hmacKey = jwtSigningKey;
+        this.algorithm = SignatureAlgorithm.forName(algorithm);
+        if (this.algorithm != SignatureAlgorithm.ES256 && !isHmac(this.algorithm)) {
+            throw new IllegalStateException("Поддерживаются только ES256, HS256 и HS512: " + algorithm);
+        }
+        this.rotationInterval = Duration.ofHours(rotationIntervalHours);
+        this.publishLead = JWKS_MAX_AGE.plusMillis(refreshIntervalMs);
+        this.retainedKeys = Math.max(retainedKeys, 3);
+        this.accessTokenSeconds = accessTokenSeconds;
+        if (isHmac(this.algorithm)) {
+            this.hmacAcceptedUntil = null;
+            this.hmacDeadlineSettled = true;
+        } else if (hmacAcceptedUntil.isBlank()) {
+            this.hmacAcceptedUntil = Instant.now().plusSeconds(accessTokenSeconds);
+        } else {
+            this.hmacAcceptedUntil = Instant.parse(hmacAcceptedUntil);
+            this.hmacDeadlineSettled = true;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (algorithm != SignatureAlgorithm.ES256) {
+            return;
+        }
+        try {
+            if (!hmacDeadlineSettled) {
+                hmacAcceptedUntil = signingKeyStore.recordEs256Since(Instant.now()).plusSeconds(accessTokenSeconds);
+                hmacDeadlineSettled = true;
+            }
+            reload();
+            rotateIfDue();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить ключи подписи JWT, используется предыдущий набор", e);
+        }
+    }
+
+    public JwtBuilder signWithCurrentKey(JwtBuilder builder) {
+        if (isHmac(algorithm)) {
+            return builder.signWith(hmacKey, algorithm);
+        }
+        SigningKey current = currentKey();
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, current.kid())
+                .signWith(current.privateKey(), SignatureAlgorithm.ES256);
+    }
+
+    public SigningMaterial currentSigningMaterial() {
+        if (isHmac(algorithm)) {
+            return new SigningMaterial(algorithm, null, hmacKey);
+        }
+        SigningKey current = currentKey();
+        return new SigningMaterial(SignatureAlgorithm.ES256, current.kid(), current.privateKey());
+    }
+
+    private SigningKey currentKey() {
+        SigningKey current = activeKey();
+        if (current == null && reloadAllowed()) {
+            reload();
+            current = activeKey();
+        }
+        if (current == null) {
+            throw new IllegalStateException("Нет активного ключа подписи JWT");
+        }
+        return current;
+    }
+
+    private static boolean isHmac(SignatureAlgorithm algorithm) {
+        return algorithm == SignatureAlgorithm.HS256 || algorithm == SignatureAlgorithm.HS512;
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        if (SignatureAlgorithm.HS512.getValue().equals(header.getAlgorithm())
+                || SignatureAlgorithm.HS256.getValue().equals(header.getAlgorithm())) {
+            if (hmacAcceptedUntil != null && Instant.now().isAfter(hmacAcceptedUntil)) {
+                throw new SignatureException("Подпись " + header.getAlgorithm() + " больше не принимается");
+            }
+            return hmacKey;
+        }
+
+        String kid = header.getKeyId();
+        if (kid == null) {
+            throw new SignatureException("В заголовке JWT нет kid");
+        }
+        SigningKey key = keySet.byKid().get(kid);
+        if (key == null && reloadAllowed()) {
+            // Ключ мог быть выпущен другим узлом после нашего последнего обновления
+            reload();
+            key = keySet.byKid().get(kid);
+        }
+        if (key == null) {
+            throw new SignatureException("Неизвестный kid: " + kid);
+        }
+        return key.publicKey();
+    }
+
+    public Map<String, Object> jwks() {
+        return keySet.jwks();
+    }
+
+    public String jwksEtag() {
+        return keySet.etag();
+    }
+
+    // Самый новый ключ, опубликованный не позже publishLead назад. Если таких нет (первый ключ
+    // в пустом хранилище), подписывает самый старый: проверять по JWKS ещё нечего
+    private SigningKey activeKey() {
+        List<SigningKey> keys = keySet.keys();
+        Instant activeBefore = Instant.now().minus(publishLead);
+        for (SigningKey key : keys) {
+            if (!key.createdAt().isAfter(activeBefore)) {
+                return key;
+            }
+        }
+        return keys.isEmpty() ? null : keys.get(keys.size() - 1);
+    }
+
+    private boolean reloadAllowed() {
+        long now = System.currentTimeMillis();
+        long last = lastReload.get();
+        return now - last >= MISSING_KID_RELOAD_INTERVAL_MS && lastReload.compareAndSet(last, now);
+    }
+
+    private void reload() {
+        List<SigningKey> keys = new ArrayList<>();
+        for (StoredSigningKey stored : signingKeyStore.findAll()) {
+            keys.add(decode(stored));
+        }
+        keys.sort(Comparator.comparing(SigningKey::createdAt).reversed());
+        keySet = KeySet.of(keys);
+        lastReload.set(System.currentTimeMillis());
+    }
+
+    // Следующий ключ выпускается за publishLead до конца rotationInterval самого нового ключа,
+    // поэтому активным он становится ровно через rotationInterval
+    private void rotateIfDue() {
+        SigningKey newest = keySet.newest();
+        if (newest != null && newest.createdAt().plus(rotationInterval).minus(publishLead).isAfter(Instant.now())) {
+            return;
+        }
+        if (!signingKeyStore.tryLockRotation(Duration.ofMinutes(1))) {
+            if (newest == null) {
+                awaitWinnerKey();
+            }
+            return;
+        }
+
+        signingKeyStore.add(generate());
+        List<SigningKey> keys = new ArrayList<>(keySet.keys());
+        for (int i = retainedKeys - 1; i < keys.size(); i++) {
+            signingKeyStore.remove(keys.get(i).kid());
+        }
+        reload();
+        log.info("Опубликован новый ключ подписи JWT {}, подпись им через {}", keySet.newest().kid(), publishLead);
+    }
+
+    // Первый ключ выпускает другой узел: ждём его, а не остаёмся без ключа до следующего refresh
+    private void awaitWinnerKey() {
+        for (int i = 0; i < WINNER_KEY_WAIT_ATTEMPTS && keySet.newest() == null; i++) {
+            try {
+                Thread.sleep(WINNER_KEY_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            reload();
+        }
+        if (keySet.newest() == null) {
+            log.warn("Ключ подписи JWT, выпускаемый другим узлом, ещё не появился");
+        }
+    }
+
+    private static StoredSigningKey generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            return new StoredSigningKey(UUID.randomUUID().toString(), Instant.now(),
+                    pair.getPrivate().getEncoded(), pair.getPublic().getEncoded());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SigningKey decode(StoredSigningKey stored) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance("EC");
+            return new SigningKey(stored.kid(), stored.createdAt(),
+                    factory.generatePrivate(new PKCS8EncodedKeySpec(stored.privateKey())),
+                    factory.generatePublic(new X509EncodedKeySpec(stored.publicKey())));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Повреждён ключ подписи " + stored.kid(), e);
+        }
+    }
+
+    private record KeySet(List<SigningKey> keys, Map<String, SigningKey> byKid,
+                          Map<String, Object> jwks, String etag) {
+
+        static final KeySet EMPTY = of(List.of());
+
+        SigningKey newest() {
+            return keys.isEmpty() ? null : keys.get(0);
+        }
+
+        static KeySet of(List<SigningKey> keys) {
+            Map<String, SigningKey> byKid = new HashMap<>();
+            List<Map<String, Object>> jwks = new ArrayList<>();
+            StringBuilder kids = new StringBuilder();
+            for (SigningKey key : keys) {
+                byKid.put(key.kid(), key);
+                jwks.add(toJwk(key));
+                kids.append(key.kid()).append(',');
+            }
+            return new KeySet(List.copyOf(keys), byKid, Map.of("keys", jwks), etag(kids.toString()));
+        }
+
+        private static Map<String, Object> toJwk(SigningKey key) {
+            ECPublicKey publicKey = (ECPublicKey) key.publicKey();
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("use", "sig");
+            jwk.put("alg", SignatureAlgorithm.ES256.getValue());
+            jwk.put("kid", key.kid());
+            jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+            jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+            return jwk;
+        }
+
+        // Координата P-256 в JWK - ровно 32 байта big-endian без знакового байта
+        private static String coordinate(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            byte[] fixed = new byte[32];
+            int length = Math.min(bytes.length, 32);
+            System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+        }
+
+        private static String etag(String kids) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(kids.getBytes(StandardCharsets.UTF_8));
+                return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12)) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
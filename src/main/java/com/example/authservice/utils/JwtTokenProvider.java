@@ -1,50 +1,60 @@
 package com.example.authservice.utils;
 
+import com.example.authservice.security.TokenGenerationService;
+import com.example.authservice.service.TokenRegistry;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
     @Value("${jwt.expiration}")
     private int jwtExpiration;
-    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
-
-    private final RedisTemplate<String, String> redisTemplate;
 
-    public JwtTokenProvider(RedisTemplate<String, String> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    // Короткоживущие access токены проверяются без состояния; реестр нужен только для аудита
+    @Value("${token-registry.register-access-tokens:false}")
+    private boolean registerAccessTokens;
+
+    // Компактный формат (CompactJwtEncoder) включается после того, как все узлы умеют его читать
+    @Value("${jwt.compact.enabled:false}")
+    private boolean compactTokens;
+
+    private final TokenRegistry tokenRegistry;
+    private final JwtKeyManager jwtKeyManager;
+    private final JwtVerifier jwtVerifier;
+    private final TokenGenerationService tokenGenerationService;
+    private final CompactJwtEncoder compactJwtEncoder;
+
+    public JwtTokenProvider(TokenRegistry tokenRegistry, JwtKeyManager jwtKeyManager,
+                            JwtVerifier jwtVerifier, TokenGenerationService tokenGenerationService,
+                            CompactJwtEncoder compactJwtEncoder) {
+        this.tokenRegistry = tokenRegistry;
+        this.jwtKeyManager = jwtKeyManager;
+        this.jwtVerifier = jwtVerifier;
+        this.tokenGenerationService = tokenGenerationService;
+        this.compactJwtEncoder = compactJwtEncoder;
     }
 
 
     public String generateToken(Authentication authentication) {
-        log.info("Generating token for authentication: {}", authentication);
-
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        log.info("User principal: {}", userPrincipal);
+        if (compactTokens) {
+            return generateCompactToken(userPrincipal);
+        }
 
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration * 1000L); // Преобразование в миллисекунды
 
-        log.info("Token details: Issued at {}, Expiration date {}", now, expiryDate);
-
-
         List<String> roles = userPrincipal.getAuthorities()
                 .stream()
                 .map(GrantedAuthority::getAuthority)
@@ -53,30 +63,48 @@ public class JwtTokenProvider {
 
         Claims claims = Jwts.claims().setSubject(userPrincipal.getUsername());
         claims.put("roles", String.join(",", roles));
+        claims.put("gen", tokenGenerationService.current(userPrincipal.getUsername()));
+
+        String tokenId = UUID.randomUUID().toString();
 
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(claims)
+                .setId(tokenId)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(SignatureAlgorithm.HS512, jwtSecret.getBytes())
-                .compact();
+                .setExpiration(expiryDate);
+        String token = jwtKeyManager.signWithCurrentKey(builder).compact();
 
-        log.info("Generated token: {}", token);
+        if (registerAccessTokens) {
+            tokenRegistry.register(tokenId, userPrincipal.getUsername(), Duration.ofSeconds(jwtExpiration));
+        }
 
-        redisTemplate.opsForValue().set(token, userPrincipal.getUsername(), jwtExpiration, TimeUnit.SECONDS);
+        return token;
+    }
 
+    private String generateCompactToken(UserDetails userPrincipal) {
+        String username = userPrincipal.getUsername();
+        String tokenId = CompactJwtEncoder.newTokenId();
+        long now = System.currentTimeMillis() / 1000;
+        String token = compactJwtEncoder.encode(username, tokenId, userPrincipal.getAuthorities(),
+                tokenGenerationService.current(username), now, now + jwtExpiration);
+
+        if (registerAccessTokens) {
+            tokenRegistry.register(tokenId, username, Duration.ofSeconds(jwtExpiration));
+        }
         return token;
     }
 
-    public String getUsernameFromToken(String token) {
+    public VerifiedToken verify(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return jwtVerifier.verify(token);
+        } catch (Exception e) {
+            throw new RuntimeException("Неверный JWT токен");
+        }
+    }
 
-            return claims.getSubject();
+    public String getUsernameFromToken(String token) {
+        try {
+            return jwtVerifier.verify(token).subject();
         } catch (Exception e) {
             throw new RuntimeException("Неверный JWT токен");
         }
@@ -84,10 +112,7 @@ public class JwtTokenProvider {
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-                    .build()
-                    .parseClaimsJws(token);
+            jwtVerifier.verify(token);
             return true;
         } catch (SignatureException ex) {
             throw new RuntimeException("Неверная подпись JWT");
@@ -0,0 +1,107 @@
+package com.example.authservice.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+@Component
+public class JwtVerifier {
+
+    private final JwtParser jwtParser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtVerifier(JwtParser jwtParser,
+                       @Value("${jwt.verification-cache.max-size:10000}") long maxSize) {
+        this.jwtParser = jwtParser;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return cached;
+        }
+
+        VerifiedToken verified = parse(token);
+        if (verified.expiresAt() != null) {
+            verifiedTokens.put(token, verified);
+        }
+        return verified;
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        String id = claims.getId() != null ? claims.getId() : hashTokenId(token);
+        return new VerifiedToken(
+                id,
+                claims.getSubject(),
+                roles(claims),
+                generation(claims),
+                expiration != null ? expiration.toInstant() : null);
+    }
+
+    // Компактные токены несут маску r и поколение g, прежние - строку roles и gen
+    private static List<String> roles(Claims claims) {
+        Long mask = claims.get(CompactJwtEncoder.ROLES_CLAIM, Long.class);
+        if (mask != null) {
+            return CompactJwtEncoder.rolesOf(mask);
+        }
+        return parseRoles(claims.get("roles", String.class));
+    }
+
+    private static Long generation(Claims claims) {
+        Long generation = claims.get(CompactJwtEncoder.GENERATION_CLAIM, Long.class);
+        return generation != null ? generation : claims.get("gen", Long.class);
+    }
+
+    // Токены, выпущенные до появления jti, идентифицируются укороченным SHA-256 от самой строки
+    static String hashTokenId(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> parseRoles(String roles) {
+        if (roles == null || roles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return List.copyOf(Arrays.asList(roles.split(",")));
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            long nanos = Duration.between(Instant.now(), verified.expiresAt()).toNanos();
+            return Math.max(nanos, 0L);
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.authservice.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.kafka.config.TopicBuilder;
+
+// Без relay топик не нужен, и KafkaAdmin не ходит к брокеру при старте
+@Configuration
+@ConditionalOnProperty(name = "user-events.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaConfig {
+
+    @Bean
+    public NewTopic userEventsTopic(@Value("${user-events.topic:auth.user-events}") String topic,
+                                    @Value("${user-events.partitions:6}") int partitions,
+                                    @Value("${user-events.replicas:1}") int replicas) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+}
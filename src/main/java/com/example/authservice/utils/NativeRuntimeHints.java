@@ -0,0 +1,47 @@
+package com.example.authservice.utils;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.payload.UserEvent;
+import com.example.authservice.payload.UserSummary;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+// Подсказки для native-image: то, что Spring AOT не видит сам. Типы из сигнатур контроллеров
+// и JPA-сущности AOT регистрирует автоматически, здесь - рефлексия Jackson и jjwt
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    // jjwt 0.11 создаёт реализации через Classes.newInstance и ServiceLoader
+    private static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // User - тело /auth/register, включая @Transient authorities с собственным десериализатором
+        hints.reflection().registerType(User.class, MemberCategory.values());
+        // Jackson создаёт десериализатор из @JsonDeserialize(contentUsing = ...) через конструктор
+        hints.reflection().registerType(SimpleGrantedAuthorityDeserializer.class,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        // Пишутся ObjectMapper-ом вне контроллеров (outbox, кеши)
+        hints.reflection().registerType(UserEvent.class, MemberCategory.values());
+        hints.reflection().registerType(UserSummary.class, MemberCategory.values());
+
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+    }
+}
@@ -1,14 +1,65 @@
 package com.example.authservice.utils;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class PasswordConfig {
+    @Value("${password-encoder.algorithm:bcrypt}")
+    private String algorithm;
+
+    @Value("${password-encoder.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${password-encoder.argon2.salt-length:16}")
+    private int argon2SaltLength;
+    @Value("${password-encoder.argon2.hash-length:32}")
+    private int argon2HashLength;
+    @Value("${password-encoder.argon2.parallelism:1}")
+    private int argon2Parallelism;
+    @Value("${password-encoder.argon2.memory-kb:16384}")
+    private int argon2MemoryKb;
+    @Value("${password-encoder.argon2.iterations:2}")
+    private int argon2Iterations;
+
+    @Value("${password-encoder.pbkdf2.salt-length:16}")
+    private int pbkdf2SaltLength;
+    @Value("${password-encoder.pbkdf2.iterations:310000}")
+    private int pbkdf2Iterations;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public OffloadingPasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor) {
+        return new OffloadingPasswordEncoder(delegatingPasswordEncoder(), passwordHashingExecutor);
+    }
+
+    // Хеши пишутся с префиксом {id}; при входе upgradeEncoding() срабатывает, если у сохранённого
+    // хеша другой алгоритм или стоимость ниже настроенной, и DaoAuthenticationProvider перехеширует пароль
+    private DelegatingPasswordEncoder delegatingPasswordEncoder() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", new Argon2PasswordEncoder(argon2SaltLength, argon2HashLength,
+                argon2Parallelism, argon2MemoryKb, argon2Iterations));
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder("", pbkdf2SaltLength, pbkdf2Iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Неизвестный алгоритм хеширования паролей: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Пароли, сохранённые до перехода на DelegatingPasswordEncoder, лежат без префикса {bcrypt}
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
     }
 }
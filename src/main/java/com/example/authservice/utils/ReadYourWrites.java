@@ -0,0 +1,60 @@
+package com.example.authservice.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Пользователь, только что созданный или изменённый на этом узле, sticky-seconds читается с primary,
+// чтобы реплика с допустимым отставанием не вернула "не найден" или старые роли.
+// Окно локально для узла; на других узлах запаздывание ограничено datasource.replicas.max-lag-ms
+@Component
+public class ReadYourWrites {
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> recentIds;
+    private final Cache<String, Boolean> recentUsernames;
+
+    public ReadYourWrites(@Value("${datasource.replicas.enabled:false}") boolean enabled,
+                          @Value("${datasource.replicas.sticky-seconds:5}") long stickySeconds,
+                          @Value("${datasource.replicas.sticky-max-size:100000}") long maxSize) {
+        this.enabled = enabled;
+        this.recentIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(stickySeconds))
+                .build();
+        this.recentUsernames = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(stickySeconds))
+                .build();
+    }
+
+    public void recordWrite(Long id, String username) {
+        if (!enabled) {
+            return;
+        }
+        if (id != null) {
+            recentIds.put(id, Boolean.TRUE);
+        }
+        if (username != null) {
+            recentUsernames.put(username, Boolean.TRUE);
+        }
+    }
+
+    public <T> T readById(Long id, Supplier<T> query) {
+        if (enabled && id != null && recentIds.getIfPresent(id) != null) {
+            return ReplicaRoutingDataSource.onPrimary(query);
+        }
+        return query.get();
+    }
+
+    public <T> T readByUsername(String username, Supplier<T> query) {
+        if (enabled && username != null && recentUsernames.getIfPresent(username) != null) {
+            return ReplicaRoutingDataSource.onPrimary(query);
+        }
+        return query.get();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.authservice.utils;
+
+import com.example.authservice.repository.RedisTokenGenerationStore;
+import com.example.authservice.security.TokenGenerationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@ConditionalOnProperty(name = "token-generation.pubsub.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisPubSubConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TokenGenerationService tokenGenerationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tokenGenerationService, new ChannelTopic(RedisTokenGenerationStore.CHANNEL));
+        return container;
+    }
+}
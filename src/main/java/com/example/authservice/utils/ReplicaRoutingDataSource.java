@@ -0,0 +1,211 @@
+package com.example.authservice.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Соединения для read-only транзакций (LazyConnectionDataSourceProxy.setReadOnlyDataSource):
+// реплики по кругу, если их отставание не больше maxLagMillis, иначе primary.
+// Отставание опрашивается в фоне; пока реплика не ответила на опрос, она не используется
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Миллисекунды отставания; 0, если всё принятое WAL уже применено (иначе простой без записей выглядел бы как отставание)
+    public static final String POSTGRES_LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final long staleAfterNanos;
+    private final String lagQuery;
+    private final ScheduledExecutorService prober;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+    private final Counter lagFallbacks;
+    private final Counter unavailableFallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, MeterRegistry meterRegistry,
+                                    long maxLagMillis, long probeIntervalMillis, String lagQuery) {
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+        // Реплика, которую давно не удавалось опросить, считается отставшей
+        this.staleAfterNanos = TimeUnit.MILLISECONDS.toNanos(probeIntervalMillis * 3);
+        this.lagQuery = lagQuery;
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.available ? r.lagMillis : Double.NaN)
+                    .description("Отставание реплики по последнему опросу, мс")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+
+        this.replicaReads = readCounter(meterRegistry, "replica", "none");
+        this.stickyReads = readCounter(meterRegistry, "primary", "read_your_writes");
+        this.lagFallbacks = readCounter(meterRegistry, "primary", "lag");
+        this.unavailableFallbacks = readCounter(meterRegistry, "primary", "unavailable");
+
+        this.prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probe, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target, String fallback) {
+        return Counter.builder("datasource.reads")
+                .description("Соединения read-only транзакций по источнику и причине ухода на primary")
+                .tag("target", target)
+                .tag("fallback", fallback)
+                .register(meterRegistry);
+    }
+
+    // Выбор источника происходит при первом запросе транзакции, поэтому вызов должен
+    // окружать запросы, а не только начало транзакции
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PRIMARY_REQUIRED.get() != null) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+
+        Replica replica = pick();
+        if (replica == null) {
+            lagFallbacks.increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            replica.markUnavailable(e);
+            unavailableFallbacks.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Учётные данные задаются пулам primary и реплик");
+    }
+
+    private Replica pick() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        long now = System.nanoTime();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.usable(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    void probe() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                resultSet.next();
+                replica.update((long) resultSet.getDouble(1));
+            } catch (SQLException | RuntimeException e) {
+                replica.markUnavailable(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        prober.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Не удалось закрыть пул реплики {}", replica.name, e);
+                }
+            }
+        }
+    }
+
+    private final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean available;
+        volatile long lagMillis;
+        volatile long probedAt;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        boolean usable(long now) {
+            return available && lagMillis <= maxLagMillis && now - probedAt <= staleAfterNanos;
+        }
+
+        void update(long lagMillis) {
+            if (!available) {
+                log.info("Реплика {} доступна, отставание {} мс", name, lagMillis);
+            }
+            this.lagMillis = lagMillis;
+            this.probedAt = System.nanoTime();
+            this.available = true;
+        }
+
+        void markUnavailable(Exception e) {
+            if (available) {
+                log.warn("Реплика {} недоступна, чтение идёт с primary: {}", name, e.getMessage());
+            }
+            available = false;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.authservice.utils;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+
+public record SigningKey(String kid, Instant createdAt, PrivateKey privateKey, PublicKey publicKey) {
+}
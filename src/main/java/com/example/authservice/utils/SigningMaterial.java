@@ -0,0 +1,9 @@
+package com.example.authservice.utils;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.security.Key;
+
+// Текущий ключ подписи для CompactJwtEncoder; kid == null у HMAC-ключа
+public record SigningMaterial(SignatureAlgorithm algorithm, String kid, Key key) {
+}
@@ -0,0 +1,12 @@
+package com.example.authservice.utils;
+
+import java.time.Instant;
+import java.util.List;
+
+// generation - claim gen, null у токенов, выпущенных до появления поколений
+public record VerifiedToken(String id, String subject, List<String> roles, Long generation, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
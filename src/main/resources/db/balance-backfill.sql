@@ -0,0 +1,17 @@
+-- Однократный перенос users.balance в счета user_balances и журнал balance_ledger.
+-- Выполнить после первого запуска версии с user_balances (таблицы создаёт ddl-auto=update)
+begin;
+
+insert into user_balances (user_id, amount_minor, version)
+select u.id, round(coalesce(u.balance, 0) * 100), 0
+from users u
+where not exists (select 1 from user_balances b where b.user_id = u.id);
+
+insert into balance_ledger (user_id, amount_minor, reference, created_at)
+select u.id, round(u.balance * 100), 'opening', now()
+from users u
+where coalesce(u.balance, 0) <> 0;
+
+alter table users drop column balance;
+
+commit;
@@ -1,9 +1,16 @@
 package com.example.authservice.controller;
 
 import com.example.authservice.entity.User;
+import com.example.authservice.exceptions.LoginRateLimitedException;
+import com.example.authservice.exceptions.LookupBatchTooLargeException;
+import com.example.authservice.exceptions.PasswordHashingUnavailableException;
 import com.example.authservice.payload.AuthResponse;
 import com.example.authservice.payload.LoginRequest;
+import com.example.authservice.payload.UserLookupResponse;
+import com.example.authservice.payload.UserSummary;
 import com.example.authservice.service.AuthService;
+import com.example.authservice.service.SessionService;
+import com.example.authservice.service.UserLookupService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,12 +22,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +40,12 @@ class AuthControllerTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private UserLookupService userLookupService;
+
+    @Mock
+    private SessionService sessionService;
+
     @InjectMocks
     private AuthController authController;
 
@@ -43,8 +60,8 @@ class AuthControllerTest {
     void testAuthenticateUser() throws Exception {
         // Given
         LoginRequest loginRequest = new LoginRequest("username", "password");
-        when(authService.authenticate(any(), any())).thenReturn(
-                new AuthResponse(loginRequest.getUsername(), loginRequest.getPassword()));
+        when(authService.authenticate(any(), any(), any())).thenReturn(
+                AuthResponse.builder().token("token").username(loginRequest.getUsername()).build());
 
         // When & Then
         mockMvc.perform(post("/auth/login")
@@ -53,6 +70,36 @@ class AuthControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testAuthenticateUserWhenHashingSaturated() throws Exception {
+        // Given
+        LoginRequest loginRequest = new LoginRequest("username", "password");
+        when(authService.authenticate(any(), any(), any())).thenThrow(
+                new PasswordHashingUnavailableException("Сервис перегружен, повторите попытку позже", 2));
+
+        // When & Then
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(loginRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
+    @Test
+    void testAuthenticateUserWhenRateLimited() throws Exception {
+        // Given
+        LoginRequest loginRequest = new LoginRequest("username", "password");
+        when(authService.authenticate(any(), any(), any())).thenThrow(
+                new LoginRateLimitedException("Слишком много попыток входа, повторите позже", 30));
+
+        // When & Then
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"));
+    }
+
     @Test
     void testRegisterUser() throws Exception {
         // Given
@@ -83,13 +130,15 @@ class AuthControllerTest {
     void testGetUserById() throws Exception {
         // Given
         Long userId = 1L;
-        User user = new User("username", "password");
+        UserSummary user = new UserSummary(userId, "username", "username@example.com", List.of("ROLE_USER"));
         when(authService.getUserById(userId)).thenReturn(Optional.of(user));
 
         // When & Then
         mockMvc.perform(get("/auth/getById")
                         .param("userId", String.valueOf(userId)))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("username"))
+                .andExpect(jsonPath("$.password").doesNotExist());
     }
 
     @Test
@@ -104,6 +153,57 @@ class AuthControllerTest {
                 .andExpect(status().isOk()); // Проверьте статус ответа в зависимости от реализации
     }
 
+    @Test
+    void testLookupUsers() throws Exception {
+        // Given
+        UserSummary user = new UserSummary(1L, "username", "username@example.com", List.of("ROLE_USER"));
+        when(userLookupService.lookup(List.of(1L, 2L), null))
+                .thenReturn(new UserLookupResponse(Map.of(1L, user), Map.of()));
+
+        // When & Then
+        mockMvc.perform(post("/auth/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byId.1.username").value("username"))
+                .andExpect(jsonPath("$.byId.2").doesNotExist());
+    }
+
+    @Test
+    void testLookupUsersRejectsOversizedBatch() throws Exception {
+        // Given
+        when(userLookupService.lookup(any(), any())).thenThrow(new LookupBatchTooLargeException("Не больше 500 ключей за запрос"));
+
+        // When & Then
+        mockMvc.perform(post("/auth/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testLogout() throws Exception {
+        // Given
+        when(sessionService.logout("Bearer token", "refresh")).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(post("/auth/logout")
+                        .header("Authorization", "Bearer token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"refresh\"}"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testLogoutEverywhereWithoutValidTokenIsUnauthorized() throws Exception {
+        // Given
+        when(sessionService.logoutEverywhere(any())).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(post("/auth/logout/all"))
+                .andExpect(status().isUnauthorized());
+    }
+
     private static String asJsonString(final Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
@@ -0,0 +1,113 @@
+package com.example.authservice.repository;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.payload.UserSummary;
+import com.example.authservice.security.CustomUserDetailsService;
+import com.example.authservice.utils.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Число SQL-запросов на каждый путь чтения; рост числа означает вернувшийся N+1 или лишнюю загрузку
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class AuthRepositoryQueryCountTest {
+
+    @Autowired
+    private AuthRepository authRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long aliceId;
+
+    @BeforeEach
+    void setup() {
+        aliceId = authRepository.save(newUser("alice", List.of("ROLE_USER", "ROLE_ADMIN"))).getId();
+        authRepository.save(newUser("bob", List.of("ROLE_USER")));
+        authRepository.save(newUser("carol", List.of()));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testViewByIdIsOneQuery() {
+        UserSummary view = authRepository.findViewById(aliceId).orElseThrow();
+
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), Set.copyOf(view.getRoles()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testCredentialsLookupIsOneQuery() {
+        UserCredentials credentials = authRepository.findCredentialsByUsername("alice").orElseThrow();
+
+        assertEquals("encoded-alice", credentials.password());
+        assertEquals(2, credentials.roles().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testLoadUserByUsernameIsOneQuery() {
+        CustomUserDetailsService service = new CustomUserDetailsService(authRepository, new SimpleMeterRegistry(),
+                new ReadYourWrites(false, 5, 100), 100, 60);
+
+        UserDetails details = service.loadUserByUsername("bob");
+
+        assertEquals(1, details.getAuthorities().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testStreamedSummariesAreOneQueryRegardlessOfUserCount() {
+        List<Object[]> rows;
+        try (Stream<Object[]> stream = authRepository.streamSummariesWithRoles()) {
+            rows = stream.toList();
+        }
+
+        // alice с двумя ролями - две строки, carol без ролей - одна строка с null
+        assertEquals(4, rows.size());
+        assertEquals(3, rows.stream().map(row -> row[0]).distinct().count());
+        assertNull(rows.get(3)[3]);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testEntityFindAllLoadsRolesInBatches() {
+        List<User> users = authRepository.findAll();
+        users.forEach(user -> user.getRoles().size());
+
+        // users + одна пачка user_roles на всех, а не запрос на каждого
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private static User newUser(String username, List<String> roles) {
+        User user = new User(username, "encoded-" + username);
+        user.setEmail(username + "@example.com");
+        user.setRoles(roles);
+        return user;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.authservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// Redis заменён на HashMap за HashOperations: проверяется только формат записи
+class RedisSigningKeyStoreTest {
+
+    private static final byte[] PRIVATE_KEY = "pkcs8-private-key-bytes".getBytes();
+    private static final byte[] PUBLIC_KEY = "x509-public-key-bytes".getBytes();
+
+    private final Map<Object, Object> hash = new HashMap<>();
+    private RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(anyString())).thenAnswer(invocation -> Map.copyOf(hash));
+        doAnswer(invocation -> hash.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(hashOperations).put(anyString(), any(), any());
+    }
+
+    @Test
+    void testPrivateKeyIsStoredEncrypted() {
+        RedisSigningKeyStore store = new RedisSigningKeyStore(redisTemplate, "kek-secret");
+        Instant createdAt = Instant.ofEpochSecond(1_700_000_000);
+
+        store.add(new StoredSigningKey("kid-1", createdAt, PRIVATE_KEY, PUBLIC_KEY));
+
+        String value = (String) hash.get("kid-1");
+        assertTrue(value.startsWith("1700000000|enc:"));
+        assertFalse(value.contains(Base64.getEncoder().encodeToString(PRIVATE_KEY)));
+
+        List<StoredSigningKey> keys = store.findAll();
+        assertEquals(1, keys.size());
+        assertEquals(createdAt, keys.get(0).createdAt());
+        assertArrayEquals(PRIVATE_KEY, keys.get(0).privateKey());
+        assertArrayEquals(PUBLIC_KEY, keys.get(0).publicKey());
+    }
+
+    @Test
+    void testWrongSecretCannotDecrypt() {
+        new RedisSigningKeyStore(redisTemplate, "kek-secret")
+                .add(new StoredSigningKey("kid-1", Instant.now(), PRIVATE_KEY, PUBLIC_KEY));
+
+        assertThrows(IllegalStateException.class, () -> new RedisSigningKeyStore(redisTemplate, "other").findAll());
+    }
+
+    @Test
+    void testEntryMovedToAnotherKidIsRejected() {
+        RedisSigningKeyStore store = new RedisSigningKeyStore(redisTemplate, "kek-secret");
+        store.add(new StoredSigningKey("kid-1", Instant.now(), PRIVATE_KEY, PUBLIC_KEY));
+
+        hash.put("kid-2", hash.remove("kid-1"));
+
+        assertThrows(IllegalStateException.class, store::findAll);
+    }
+
+    @Test
+    void testPlaintextEntryIsStillReadable() {
+        hash.put("legacy", "1700000000|" + Base64.getEncoder().encodeToString(PRIVATE_KEY)
+                + "|" + Base64.getEncoder().encodeToString(PUBLIC_KEY));
+
+        List<StoredSigningKey> keys = new RedisSigningKeyStore(redisTemplate, "kek-secret").findAll();
+
+        assertArrayEquals(PRIVATE_KEY, keys.get(0).privateKey());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.authservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Redis заменён на HashMap: скрипт INCREMENT_SCRIPT исполняется по смыслу (INCR, EXPIRE, если он есть),
+// истечение TTL - явный вызов expireKeys()
+class RedisTokenGenerationStoreTest {
+
+    private final Map<String, Long> values = new HashMap<>();
+    private final Set<String> expiring = new HashSet<>();
+    private RedisTokenGenerationStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> {
+            Long value = values.get(invocation.<String>getArgument(0));
+            return value != null ? value.toString() : null;
+        });
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class, invocation ->
+                switch (invocation.getMethod().getName()) {
+                    case "opsForValue" -> valueOperations;
+                    case "execute" -> increment(invocation.getArgument(0), invocation.getArgument(1));
+                    default -> null;
+                });
+        store = new RedisTokenGenerationStore(redisTemplate);
+    }
+
+    @Test
+    void testRevokeAfterLongIdleDoesNotReuseGeneration() {
+        assertEquals(1, store.increment("alice"));
+
+        // Сессии поколения 0 продолжают ротироваться дольше jwt.refresh-expiration; счётчик не должен истечь
+        expireKeys();
+
+        assertEquals(1, store.get("alice"));
+        assertEquals(2, store.increment("alice"));
+    }
+
+    private Long increment(RedisScript<Long> script, List<String> keys) {
+        String key = keys.get(0);
+        long generation = values.merge(key, 1L, Long::sum);
+        if (script.getScriptAsString().contains("EXPIRE")) {
+            expiring.add(key);
+        }
+        return generation;
+    }
+
+    private void expireKeys() {
+        expiring.forEach(values::remove);
+        expiring.clear();
+    }
+}
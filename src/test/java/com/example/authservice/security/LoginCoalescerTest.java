@@ -0,0 +1,140 @@
+package com.example.authservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginCoalescerTest {
+
+    private static final int THREADS = 16;
+
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+    private final String storedHash = encoder.encode("secret");
+    private final AtomicInteger hashes = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new LoginCoalescer(meterRegistry, true);
+    }
+
+    @Test
+    void testBurstOfIdenticalLoginsHashesOnce() throws Exception {
+        List<Future<Authentication>> results = burst("secret");
+
+        Authentication first = results.get(0).get(30, TimeUnit.SECONDS);
+        for (Future<Authentication> result : results) {
+            assertSame(first, result.get(30, TimeUnit.SECONDS));
+        }
+        assertEquals(1, hashes.get());
+        assertEquals(1, count("leader"));
+        assertEquals(THREADS - 1, count("follower"));
+    }
+
+    @Test
+    void testFollowersReceiveBadCredentials() throws Exception {
+        List<Future<Authentication>> results = burst("wrong");
+
+        for (Future<Authentication> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(BadCredentialsException.class, e.getCause());
+        }
+        assertEquals(1, hashes.get());
+    }
+
+    @Test
+    void testDifferentPasswordsAreNotCoalesced() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Authentication> blocked = executor.submit(() -> coalescer.authenticate("alice", "secret", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return check("alice", "secret").get();
+        }));
+        leaderStarted.await(30, TimeUnit.SECONDS);
+
+        // Пока первая проверка идёт, неверный пароль для того же имени проверяется отдельно
+        assertThrows(BadCredentialsException.class,
+                () -> coalescer.authenticate("alice", "wrong", check("alice", "wrong")));
+        release.countDown();
+
+        assertNotNull(blocked.get(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(2, hashes.get());
+        assertEquals(0, count("follower"));
+    }
+
+    @Test
+    void testCompletedResultIsNotReused() {
+        coalescer.authenticate("alice", "secret", check("alice", "secret"));
+        coalescer.authenticate("alice", "secret", check("alice", "secret"));
+
+        assertEquals(2, hashes.get());
+        assertEquals(0, meterRegistry.get("auth.login.coalesce.in_flight").gauge().value());
+    }
+
+    // Лидер держит проверку, пока все остальные потоки не присоединятся к ней
+    private List<Future<Authentication>> burst(String password) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Authentication>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return coalescer.authenticate("alice", password, () -> {
+                    waitForFollowers();
+                    return check("alice", password).get();
+                });
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private Supplier<Authentication> check(String username, String password) {
+        return () -> {
+            hashes.incrementAndGet();
+            if (!encoder.matches(password, storedHash)) {
+                throw new BadCredentialsException("Неверное имя пользователя или пароль");
+            }
+            return UsernamePasswordAuthenticationToken.authenticated(username, null, List.of());
+        };
+    }
+
+    private void waitForFollowers() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (count("follower") < THREADS - 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double count(String role) {
+        return meterRegistry.get("auth.login.coalesce").tag("role", role).counter().count();
+    }
+}
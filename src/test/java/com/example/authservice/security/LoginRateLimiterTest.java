@@ -0,0 +1,119 @@
+package com.example.authservice.security;
+
+import com.example.authservice.exceptions.LoginRateLimitedException;
+import com.example.authservice.repository.InMemoryLoginAttemptStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new LoginRateLimiter(new InMemoryLoginAttemptStore(1000, 60, 900, 3600), meterRegistry,
+                true, 60, 5, 8, 3, 30, 3600, 900);
+    }
+
+    @Test
+    void testRejectsUsernameOverLimit() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("alice", "10.0.0." + i);
+        }
+
+        LoginRateLimitedException e = assertThrows(LoginRateLimitedException.class,
+                () -> limiter.acquire("ALICE", "10.0.0.99"));
+        assertEquals(60, e.getRetryAfterSeconds());
+        assertEquals(1.0, rejected("username"));
+    }
+
+    @Test
+    void testUsernameLimitDoesNotBlockOwnerFromAnotherNetwork() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("frank", "203.0.113." + i);
+        }
+        assertThrows(LoginRateLimitedException.class, () -> limiter.acquire("frank", "203.0.113.200"));
+
+        limiter.acquire("frank", "198.51.100.7");
+        assertEquals(1.0, rejected("username"));
+    }
+
+    @Test
+    void testRejectsIpOverLimit() {
+        for (int i = 0; i < 8; i++) {
+            limiter.acquire("user" + i, "10.0.0.1");
+        }
+
+        assertThrows(LoginRateLimitedException.class, () -> limiter.acquire("someone", "10.0.0.1"));
+        assertEquals(1.0, rejected("ip"));
+        limiter.acquire("someone", "10.0.0.2");
+    }
+
+    @Test
+    void testLocksUsernameAfterConsecutiveFailures() {
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure(limiter.acquire("bob", "10.0.0.1"));
+        }
+
+        LoginRateLimitedException e = assertThrows(LoginRateLimitedException.class,
+                () -> limiter.acquire("bob", "10.0.0.2"));
+        assertTrue(e.getRetryAfterSeconds() > 0 && e.getRetryAfterSeconds() <= 30);
+        assertEquals(1.0, rejected("locked"));
+        assertEquals(1.0, meterRegistry.counter("auth.login.lockouts").count());
+    }
+
+    @Test
+    void testLockoutDoesNotBlockOwnerFromAnotherNetwork() {
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure(limiter.acquire("dave", "203.0.113." + i));
+        }
+        assertThrows(LoginRateLimitedException.class, () -> limiter.acquire("dave", "203.0.113.200"));
+
+        LoginRateLimiter.Permit permit = limiter.acquire("dave", "198.51.100.7");
+
+        assertEquals(0, permit.failures());
+        limiter.recordSuccess(permit);
+        assertEquals(1.0, rejected("locked"));
+    }
+
+    @Test
+    void testLockedNetworkDoesNotSpendUsernameLimit() {
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure(limiter.acquire("erin", "203.0.113.1"));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThrows(LoginRateLimitedException.class, () -> limiter.acquire("erin", "203.0.113.1"));
+        }
+
+        limiter.acquire("erin", "198.51.100.7");
+    }
+
+    @Test
+    void testNetworkKey() {
+        assertEquals("203.0.113", LoginRateLimiter.network("203.0.113.54"));
+        assertEquals("2001:db8::1", LoginRateLimiter.network("2001:DB8::1"));
+        assertEquals("", LoginRateLimiter.network(null));
+    }
+
+    @Test
+    void testSuccessResetsFailures() {
+        limiter.recordFailure(limiter.acquire("carol", "10.0.0.1"));
+        limiter.recordFailure(limiter.acquire("carol", "10.0.0.1"));
+
+        LoginRateLimiter.Permit permit = limiter.acquire("carol", "10.0.0.1");
+        assertEquals(2, permit.failures());
+        limiter.recordSuccess(permit);
+
+        limiter.recordFailure(limiter.acquire("carol", "10.0.0.1"));
+        assertEquals(1, limiter.acquire("carol", "10.0.0.1").failures());
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.counter("auth.login.rejected", "reason", reason).count();
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.authservice.security;
+
+import com.example.authservice.controller.AuthController;
+import com.example.authservice.controller.BalanceController;
+import com.example.authservice.controller.UserController;
+import com.example.authservice.entity.User;
+import com.example.authservice.payload.BalanceResponse;
+import com.example.authservice.payload.UserLookupResponse;
+import com.example.authservice.payload.UserPage;
+import com.example.authservice.payload.UserSummary;
+import com.example.authservice.service.AuthService;
+import com.example.authservice.service.BalanceService;
+import com.example.authservice.service.SessionService;
+import com.example.authservice.service.UserImportService;
+import com.example.authservice.service.UserLookupService;
+import com.example.authservice.service.UserQueryService;
+import com.example.authservice.utils.JwtVerifier;
+import com.example.authservice.utils.VerifiedToken;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Правила доступа SecurityConfig на реальной цепочке фильтров; токены подменяются через JwtVerifier
+@WebMvcTest(controllers = {AuthController.class, UserController.class, BalanceController.class})
+@Import(SecurityConfig.class)
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtVerifier jwtVerifier;
+    @MockitoBean
+    private TokenRevocationService tokenRevocationService;
+    @MockitoBean
+    private CustomUserDetailsService customUserDetailsService;
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+    @MockitoBean
+    private AuthService authService;
+    @MockitoBean
+    private UserLookupService userLookupService;
+    @MockitoBean
+    private SessionService sessionService;
+    @MockitoBean
+    private BalanceService balanceService;
+    @MockitoBean
+    private UserQueryService userQueryService;
+    @MockitoBean
+    private UserImportService userImportService;
+
+    @Test
+    void testBalanceWritesRequireAuthentication() throws Exception {
+        mockMvc.perform(operation(post("/balances/7/credit")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/balances/settle").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testBalanceWritesAreForbiddenToUsers() throws Exception {
+        String token = token("alice", "ROLE_USER");
+
+        mockMvc.perform(operation(post("/balances/7/credit")).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(operation(post("/balances/7/debit")).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/balances/settle").header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testBalanceWritesAreAllowedToServicesAndAdmins() throws Exception {
+        when(balanceService.debit(anyLong(), any(), any())).thenReturn(new BalanceResponse(7L, BigDecimal.ONE, 1));
+        when(balanceService.credit(anyLong(), any(), any())).thenReturn(new BalanceResponse(7L, BigDecimal.TEN, 2));
+
+        mockMvc.perform(operation(post("/balances/7/debit"))
+                        .header(HttpHeaders.AUTHORIZATION, token("orders", "ROLE_SERVICE")))
+                .andExpect(status().isOk());
+        mockMvc.perform(operation(post("/balances/7/credit"))
+                        .header(HttpHeaders.AUTHORIZATION, token("root", "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testBalanceIsVisibleToOwnerAndAdminOnly() throws Exception {
+        when(userLookupService.getById(7L))
+                .thenReturn(Optional.of(new UserSummary(7L, "alice", "alice@example.com", List.of("ROLE_USER"))));
+        when(balanceService.getBalance(7L)).thenReturn(new BalanceResponse(7L, BigDecimal.TEN, 1));
+
+        mockMvc.perform(get("/balances/7"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/balances/7").header(HttpHeaders.AUTHORIZATION, token("alice", "ROLE_USER")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/balances/7").header(HttpHeaders.AUTHORIZATION, token("mallory", "ROLE_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/balances/7").header(HttpHeaders.AUTHORIZATION, token("root", "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testAdminEndpointsRequireAdminRole() throws Exception {
+        when(userQueryService.getPage(0, 100)).thenReturn(new UserPage(List.of(), null));
+
+        mockMvc.perform(get("/users/page"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/users/page").header(HttpHeaders.AUTHORIZATION, token("alice", "ROLE_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/users/page").header(HttpHeaders.AUTHORIZATION, token("root", "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testRevokedTokenIsUnauthorized() throws Exception {
+        String token = token("root", "ROLE_ADMIN");
+        when(tokenRevocationService.isRevoked(any(VerifiedToken.class))).thenReturn(true);
+
+        mockMvc.perform(get("/users/page").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testInvalidTokenIsUnauthorized() throws Exception {
+        when(jwtVerifier.verify("forged")).thenThrow(new MalformedJwtException("forged"));
+
+        mockMvc.perform(get("/users/page").header(HttpHeaders.AUTHORIZATION, "Bearer forged"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testOnlyAdminCanRegisterAdmin() throws Exception {
+        User created = new User("second-admin", "encoded");
+        when(authService.createAdmin(any())).thenReturn(Optional.of(created));
+
+        mockMvc.perform(registerAdmin())
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(registerAdmin().header(HttpHeaders.AUTHORIZATION, token("alice", "ROLE_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(registerAdmin().header(HttpHeaders.AUTHORIZATION, token("root", "ROLE_ADMIN")))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void testLookupIsForServicesAndAdmins() throws Exception {
+        when(userLookupService.lookup(any(), any())).thenReturn(new UserLookupResponse(Map.of(), Map.of()));
+
+        mockMvc.perform(lookup())
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(lookup().header(HttpHeaders.AUTHORIZATION, token("alice", "ROLE_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(lookup().header(HttpHeaders.AUTHORIZATION, token("cart", "ROLE_SERVICE")))
+                .andExpect(status().isOk());
+        mockMvc.perform(lookup().header(HttpHeaders.AUTHORIZATION, token("root", "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetByIdIsForServicesAndAdmins() throws Exception {
+        when(authService.getUserById(7L))
+                .thenReturn(Optional.of(new UserSummary(7L, "alice", "alice@example.com", List.of("ROLE_USER"))));
+
+        mockMvc.perform(get("/auth/getById").param("userId", "7"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/auth/getById").param("userId", "7")
+                        .header(HttpHeaders.AUTHORIZATION, token("alice", "ROLE_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/auth/getById").param("userId", "7")
+                        .header(HttpHeaders.AUTHORIZATION, token("cart", "ROLE_SERVICE")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/auth/getById").param("userId", "7")
+                        .header(HttpHeaders.AUTHORIZATION, token("root", "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    private static MockHttpServletRequestBuilder lookup() {
+        return post("/auth/lookup").contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[1,2]}");
+    }
+
+    private static MockHttpServletRequestBuilder registerAdmin() {
+        return post("/auth/registerAdmin").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"second-admin\",\"password\":\"password\"}");
+    }
+
+    private static MockHttpServletRequestBuilder operation(MockHttpServletRequestBuilder request) {
+        return request.contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":1.00,\"reference\":\"order-1\"}");
+    }
+
+    // Токен с именем subject; подпись не проверяется, JwtVerifier возвращает заданные claims
+    private String token(String subject, String... roles) {
+        String token = subject + "-" + String.join("-", roles);
+        when(jwtVerifier.verify(token)).thenReturn(
+                new VerifiedToken(token, subject, List.of(roles), 0L, Instant.now().plusSeconds(60)));
+        return "Bearer " + token;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.authservice.security;
+
+import com.example.authservice.repository.TokenGenerationStore;
+import com.example.authservice.utils.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenGenerationServiceTest {
+
+    private CountingStore store;
+    private TokenGenerationService service;
+
+    @BeforeEach
+    void setup() {
+        store = new CountingStore();
+        service = new TokenGenerationService(store, 100, 300);
+    }
+
+    @Test
+    void testRevokeAllMakesEarlierTokensStale() {
+        VerifiedToken legacy = token("alice", null);
+        VerifiedToken current = token("alice", service.current("alice"));
+        assertFalse(service.isStale(legacy));
+        assertFalse(service.isStale(current));
+
+        long generation = service.revokeAll("alice");
+
+        assertTrue(service.isStale(legacy));
+        assertTrue(service.isStale(current));
+        assertFalse(service.isStale(token("alice", generation)));
+        assertFalse(service.isStale(token("bob", 0L)));
+    }
+
+    @Test
+    void testChecksAreServedFromLocalCache() {
+        VerifiedToken token = token("alice", 0L);
+        for (int i = 0; i < 100; i++) {
+            service.isStale(token);
+        }
+
+        assertEquals(1, store.gets.get());
+    }
+
+    @Test
+    void testBumpOnAnotherNodeArrivesThroughPubSub() {
+        VerifiedToken token = token("alice", service.current("alice"));
+
+        // Другой узел увеличил счётчик в общем хранилище и разослал новое значение
+        store.increment("alice");
+        service.onMessage(message("1:alice"), null);
+
+        assertTrue(service.isStale(token));
+        assertEquals(1, store.gets.get());
+    }
+
+    @Test
+    void testLateMessageDoesNotRollBackGeneration() {
+        service.revokeAll("alice");
+        service.revokeAll("alice");
+
+        service.onMessage(message("1:alice"), null);
+
+        assertEquals(2, service.current("alice"));
+    }
+
+    private static VerifiedToken token(String username, Long generation) {
+        return new VerifiedToken("jti", username, List.of("ROLE_USER"), generation, Instant.now().plusSeconds(60));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("auth:token-generation".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class CountingStore implements TokenGenerationStore {
+        private final Map<String, Long> generations = new ConcurrentHashMap<>();
+        private final AtomicInteger gets = new AtomicInteger();
+
+        @Override
+        public long get(String username) {
+            gets.incrementAndGet();
+            return generations.getOrDefault(username, 0L);
+        }
+
+        @Override
+        public long increment(String username) {
+            return generations.merge(username, 1L, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.authservice.security;
+
+import com.example.authservice.repository.RevokedTokenStore;
+import com.example.authservice.service.TokenRegistry;
+import com.example.authservice.utils.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationServiceTest {
+
+    private RevokedTokenStore store;
+    private TokenGenerationService tokenGenerationService;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setup() {
+        store = mock(RevokedTokenStore.class);
+        tokenGenerationService = mock(TokenGenerationService.class);
+        service = new TokenRevocationService(store, mock(TokenRegistry.class), tokenGenerationService);
+    }
+
+    @Test
+    void testRevokedOnThisNodeBeforeSnapshotRefresh() {
+        VerifiedToken token = token("jti-1");
+
+        service.revoke(token);
+
+        assertTrue(service.isRevoked(token));
+        verify(store).add("jti-1", token.expiresAt());
+    }
+
+    @Test
+    void testSnapshotBringsRevocationsFromOtherNodes() {
+        when(store.findActive(any())).thenReturn(Set.of("jti-2"));
+        assertFalse(service.isRevoked(token("jti-2")));
+
+        service.refresh();
+
+        assertTrue(service.isRevoked(token("jti-2")));
+        assertFalse(service.isRevoked(token("jti-3")));
+    }
+
+    @Test
+    void testFailedRefreshKeepsPreviousSnapshot() {
+        when(store.findActive(any())).thenReturn(Set.of("jti-2")).thenThrow(new IllegalStateException("redis down"));
+        service.refresh();
+
+        service.refresh();
+
+        assertTrue(service.isRevoked(token("jti-2")));
+    }
+
+    @Test
+    void testStaleGenerationIsRevoked() {
+        VerifiedToken token = token("jti-4");
+        when(tokenGenerationService.isStale(token)).thenReturn(true);
+
+        assertTrue(service.isRevoked(token));
+    }
+
+    private static VerifiedToken token(String id) {
+        return new VerifiedToken(id, "alice", List.of("ROLE_USER"), 0L, Instant.now().plusSeconds(60));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.exceptions.EmailAlreadyExistsException;
+import com.example.authservice.exceptions.InvalidRefreshTokenException;
+import com.example.authservice.exceptions.UserAlreadyExistsException;
+import com.example.authservice.repository.AuthRepository;
+import com.example.authservice.security.CustomUserDetailsService;
+import com.example.authservice.security.LoginCoalescer;
+import com.example.authservice.security.LoginRateLimiter;
+import com.example.authservice.security.TokenGenerationService;
+import com.example.authservice.utils.JwtTokenProvider;
+import com.example.authservice.utils.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AuthServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private AuthRepository authRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+    private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+    private final TokenGenerationService tokenGenerationService = mock(TokenGenerationService.class);
+    private AuthService authService;
+
+    @BeforeEach
+    void setup() {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenReturn("encoded");
+
+        authService = new AuthService(authRepository, passwordEncoder, mock(JwtTokenProvider.class),
+                mock(AuthenticationManager.class), userDetailsService, refreshTokenService, tokenGenerationService,
+                mock(LoginRateLimiter.class),
+                new SimpleMeterRegistry(), mock(UserEventOutbox.class), new TransactionTemplate(transactionManager),
+                mock(BalanceService.class), mock(UserLookupService.class),
+                new LoginCoalescer(new SimpleMeterRegistry(), false), new ReadYourWrites(false, 5, 100));
+    }
+
+    @AfterEach
+    void cleanup() {
+        authRepository.deleteAll();
+    }
+
+    @Test
+    void testParallelDuplicateRegistrationsCreateExactlyOneUser() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return authService.createUser(newUser("duplicate", "duplicate@example.com"));
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        int rejected = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get(30, TimeUnit.SECONDS);
+                created++;
+            } catch (ExecutionException e) {
+                assertEquals(UserAlreadyExistsException.class, e.getCause().getClass());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        assertEquals(THREADS - 1, rejected);
+        assertEquals(1, authRepository.count());
+    }
+
+    @Test
+    void testDuplicateEmailIsReportedAsEmailConflict() {
+        authService.createUser(newUser("first", "shared@example.com"));
+
+        assertThrows(EmailAlreadyExistsException.class,
+                () -> authService.createUser(newUser("second", "shared@example.com")));
+    }
+
+    @Test
+    void testDeleteUserRevokesAllSessions() {
+        User user = authService.createUser(newUser("alice", "alice@example.com")).orElseThrow();
+
+        authService.deleteUser(user.getId());
+
+        verify(tokenGenerationService).revokeAll("alice");
+    }
+
+    @Test
+    void testRefreshForDeletedUserIsRejected() {
+        when(refreshTokenService.rotate("old")).thenReturn(new RefreshTokenService.RotatedRefreshToken("ghost", "new"));
+        when(userDetailsService.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("ghost"));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> authService.refresh("old"));
+        verify(refreshTokenService).revokeSession("new");
+    }
+
+    private static User newUser(String username, String email) {
+        User user = new User(username, "password");
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.BalanceLedgerEntry;
+import com.example.authservice.exceptions.InsufficientFundsException;
+import com.example.authservice.payload.BalanceOperation;
+import com.example.authservice.repository.BalanceLedgerRepository;
+import com.example.authservice.repository.BalanceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(BalanceService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BalanceServiceTest {
+
+    private static final int THREADS = 16;
+    private static final long USER_ID = 1L;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private BalanceLedgerRepository ledgerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> balanceService.open(USER_ID, 0));
+    }
+
+    @AfterEach
+    void cleanup() {
+        ledgerRepository.deleteAll();
+        balanceRepository.deleteAll();
+    }
+
+    @Test
+    void testParallelCreditsAndDebitsLoseNoUpdates() throws Exception {
+        balanceService.credit(USER_ID, new BigDecimal("100.00"), "seed");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS * 10; i++) {
+            boolean credit = i % 2 == 0;
+            results.add(executor.submit(() -> {
+                start.await();
+                return credit
+                        ? balanceService.credit(USER_ID, new BigDecimal("1.50"), null)
+                        : balanceService.debit(USER_ID, new BigDecimal("0.50"), null);
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 100 + 80 * 1.50 - 80 * 0.50
+        assertEquals(new BigDecimal("180.00"), balanceService.getBalance(USER_ID).amount());
+        assertEquals(18_000, ledgerSum(USER_ID));
+    }
+
+    @Test
+    void testDebitNeverGoesNegative() {
+        balanceService.credit(USER_ID, new BigDecimal("1.00"), null);
+
+        assertThrows(InsufficientFundsException.class,
+                () -> balanceService.debit(USER_ID, new BigDecimal("1.01"), null));
+
+        assertEquals(new BigDecimal("1.00"), balanceService.getBalance(USER_ID).amount());
+        assertEquals(100, ledgerSum(USER_ID));
+    }
+
+    @Test
+    void testSettleIsAllOrNothing() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> balanceService.open(2L, 500));
+
+        // Пополнение USER_ID применяется первым и должно откатиться вместе с неудачным списанием
+        assertThrows(InsufficientFundsException.class, () -> balanceService.settle(List.of(
+                new BalanceOperation(USER_ID, new BigDecimal("2.00"), "order-1"),
+                new BalanceOperation(2L, new BigDecimal("-10.00"), "order-2"))));
+
+        assertEquals(new BigDecimal("0.00"), balanceService.getBalance(USER_ID).amount());
+        assertEquals(new BigDecimal("5.00"), balanceService.getBalance(2L).amount());
+        assertEquals(0, ledgerSum(USER_ID));
+
+        balanceService.settle(List.of(
+                new BalanceOperation(2L, new BigDecimal("-2.00"), "order-3"),
+                new BalanceOperation(2L, new BigDecimal("0.25"), "order-4"),
+                new BalanceOperation(USER_ID, new BigDecimal("1.75"), "order-5")));
+
+        assertEquals(new BigDecimal("3.25"), balanceService.getBalance(2L).amount());
+        assertEquals(new BigDecimal("1.75"), balanceService.getBalance(USER_ID).amount());
+        assertEquals(325, ledgerSum(2L));
+    }
+
+    @Test
+    void testSettleRejectsOperationWithoutUserId() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> balanceService.settle(List.of(
+                new BalanceOperation(USER_ID, new BigDecimal("1.00"), "order-1"),
+                new BalanceOperation(null, new BigDecimal("1.00"), "order-2"))));
+
+        assertEquals("userId обязателен в каждой операции", e.getMessage());
+        assertEquals(new BigDecimal("0.00"), balanceService.getBalance(USER_ID).amount());
+        assertEquals(0, ledgerSum(USER_ID));
+    }
+
+    @Test
+    void testRejectsFractionsOfMinorUnit() {
+        assertThrows(IllegalArgumentException.class,
+                () -> balanceService.credit(USER_ID, new BigDecimal("0.001"), null));
+    }
+
+    // Сверка с журналом: сумма записей пользователя должна совпадать с балансом
+    private long ledgerSum(long userId) {
+        return ledgerRepository.findAll().stream()
+                .filter(entry -> entry.getUserId() == userId)
+                .mapToLong(BalanceLedgerEntry::getAmountMinor)
+                .sum();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.authservice.service;
+
+import com.example.authservice.exceptions.InvalidRefreshTokenException;
+import com.example.authservice.repository.RefreshRotation;
+import com.example.authservice.repository.RefreshTokenStore;
+import com.example.authservice.repository.TokenGenerationStore;
+import com.example.authservice.security.TokenGenerationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenServiceTest {
+
+    private MapRefreshTokenStore store;
+    private TokenGenerationService tokenGenerationService;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setup() {
+        store = new MapRefreshTokenStore();
+        tokenGenerationService = new TokenGenerationService(new MapGenerationStore(), 100, 300);
+        service = new RefreshTokenService(store, tokenGenerationService, 1209600);
+    }
+
+    @Test
+    void testRotateIssuesNewTokenOfSameFamily() {
+        String token = service.issue("alice");
+
+        RefreshTokenService.RotatedRefreshToken rotated = service.rotate(token);
+
+        assertEquals("alice", rotated.username());
+        assertNotEquals(token, rotated.refreshToken());
+        assertEquals(family(token), family(rotated.refreshToken()));
+        assertEquals("alice", service.rotate(rotated.refreshToken()).username());
+    }
+
+    @Test
+    void testReplayedTokenKillsFamily() {
+        String token = service.issue("alice");
+        String rotated = service.rotate(token).refreshToken();
+
+        InvalidRefreshTokenException reused = assertThrows(InvalidRefreshTokenException.class,
+                () -> service.rotate(token));
+
+        assertEquals("Refresh токен уже использован, сессия отозвана", reused.getMessage());
+        assertFalse(store.sessions.containsKey(family(token)));
+        // Токен, выданный при ротации, умер вместе с семейством
+        InvalidRefreshTokenException invalid = assertThrows(InvalidRefreshTokenException.class,
+                () -> service.rotate(rotated));
+        assertEquals("Refresh токен истек или отозван", invalid.getMessage());
+    }
+
+    @Test
+    void testRotateAfterRevokeAllIsRejected() {
+        String token = service.issue("alice");
+        String other = service.issue("bob");
+
+        tokenGenerationService.revokeAll("alice");
+
+        InvalidRefreshTokenException e = assertThrows(InvalidRefreshTokenException.class,
+                () -> service.rotate(token));
+        assertEquals("Сессия отозвана", e.getMessage());
+        assertFalse(store.sessions.containsKey(family(token)));
+        assertEquals("bob", service.rotate(other).username());
+        // Новая сессия после отзыва работает
+        assertEquals("alice", service.rotate(service.issue("alice")).username());
+    }
+
+    @Test
+    void testMalformedTokenIsRejected() {
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(null));
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate("no-separator"));
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate("family."));
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate("unknown.secret"));
+    }
+
+    private static String family(String refreshToken) {
+        return refreshToken.substring(0, refreshToken.indexOf('.'));
+    }
+
+    // Та же логика, что в Lua-скрипте RedisRefreshTokenStore, на ConcurrentHashMap
+    private static final class MapRefreshTokenStore implements RefreshTokenStore {
+        private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+        @Override
+        public void create(String familyId, String tokenHash, String username, long generation, Duration ttl) {
+            sessions.put(familyId, new Session(tokenHash, username, generation));
+        }
+
+        @Override
+        public RefreshRotation rotate(String familyId, String presentedHash, String newHash, Duration ttl) {
+            Session current = sessions.get(familyId);
+            if (current == null) {
+                return new RefreshRotation(RefreshRotation.Status.INVALID, null, 0);
+            }
+            if (!current.tokenHash().equals(presentedHash)) {
+                sessions.remove(familyId);
+                return new RefreshRotation(RefreshRotation.Status.REUSED, null, 0);
+            }
+            sessions.put(familyId, new Session(newHash, current.username(), current.generation()));
+            return new RefreshRotation(RefreshRotation.Status.ROTATED, current.username(), current.generation());
+        }
+
+        @Override
+        public void delete(String familyId) {
+            sessions.remove(familyId);
+        }
+
+        private record Session(String tokenHash, String username, long generation) {
+        }
+    }
+
+    private static final class MapGenerationStore implements TokenGenerationStore {
+        private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+        @Override
+        public long get(String username) {
+            return generations.getOrDefault(username, 0L);
+        }
+
+        @Override
+        public long increment(String username) {
+            return generations.merge(username, 1L, Long::sum);
+        }
+    }
+}
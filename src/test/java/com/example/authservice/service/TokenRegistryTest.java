@@ -0,0 +1,102 @@
+package com.example.authservice.service;
+
+import com.example.authservice.repository.TokenOperation;
+import com.example.authservice.repository.TokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRegistryTest {
+
+    private InMemoryTokenStore tokenStore;
+    private TokenRegistry tokenRegistry;
+
+    @BeforeEach
+    void setup() {
+        tokenStore = new InMemoryTokenStore();
+        tokenRegistry = new TokenRegistry(tokenStore, 2, 100);
+    }
+
+    @Test
+    void testRegisterDoesNotTouchStoreUntilFlush() {
+        tokenRegistry.register("jti-1", "username", Duration.ofMinutes(5));
+
+        assertEquals(0, tokenStore.applyCalls.get());
+        assertEquals(Map.of("jti-1", "username"), tokenRegistry.lookup(List.of("jti-1")));
+        assertEquals(0, tokenStore.multiGetCalls.get());
+    }
+
+    @Test
+    void testFlushPipelinesInBatches() {
+        for (int i = 0; i < 5; i++) {
+            tokenRegistry.register("jti-" + i, "user-" + i, Duration.ofMinutes(5));
+        }
+
+        tokenRegistry.flush();
+
+        assertEquals(3, tokenStore.applyCalls.get());
+        assertEquals(5, tokenStore.values.size());
+    }
+
+    @Test
+    void testLookupResolvesManyTokensInOneRoundTrip() {
+        tokenRegistry.register("jti-1", "first", Duration.ofMinutes(5));
+        tokenRegistry.register("jti-2", "second", Duration.ofMinutes(5));
+        tokenRegistry.flush();
+
+        Map<String, String> result = tokenRegistry.lookup(List.of("jti-1", "jti-2", "unknown"));
+
+        assertEquals(Map.of("jti-1", "first", "jti-2", "second"), result);
+        assertEquals(1, tokenStore.multiGetCalls.get());
+    }
+
+    @Test
+    void testRevokeRemovesToken() {
+        tokenRegistry.register("jti-1", "username", Duration.ofMinutes(5));
+        tokenRegistry.flush();
+
+        tokenRegistry.revoke("jti-1");
+        assertEquals(Map.of(), tokenRegistry.lookup(List.of("jti-1")));
+
+        tokenRegistry.flush();
+        assertEquals(Map.of(), tokenRegistry.lookup(List.of("jti-1")));
+        assertTrue(tokenStore.values.isEmpty());
+    }
+
+    static class InMemoryTokenStore implements TokenStore {
+
+        final Map<String, String> values = new ConcurrentHashMap<>();
+        final AtomicInteger applyCalls = new AtomicInteger();
+        final AtomicInteger multiGetCalls = new AtomicInteger();
+
+        @Override
+        public void apply(List<TokenOperation> operations) {
+            applyCalls.incrementAndGet();
+            for (TokenOperation op : operations) {
+                if (op.type() == TokenOperation.Type.REGISTER) {
+                    values.put(op.tokenId(), op.username());
+                } else {
+                    values.remove(op.tokenId());
+                }
+            }
+        }
+
+        @Override
+        public List<String> multiGet(List<String> tokenIds) {
+            multiGetCalls.incrementAndGet();
+            List<String> result = new ArrayList<>(tokenIds.size());
+            for (String tokenId : tokenIds) {
+                result.add(values.get(tokenId));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.entity.UserOutboxEvent;
+import com.example.authservice.repository.UserOutboxRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@EmbeddedKafka(partitions = 1, topics = {UserEventRelayTest.TOPIC, UserEventRelayTest.CAPPED_TOPIC})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserEventRelayTest {
+
+    static final String TOPIC = "auth.user-events";
+    static final String CAPPED_TOPIC = "auth.user-events.capped";
+
+    @Autowired
+    private UserOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private TransactionTemplate transactionTemplate;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private UserEventOutbox outbox;
+
+    @BeforeEach
+    void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps,
+                new StringSerializer(), new StringSerializer()));
+        outbox = new UserEventOutbox(outboxRepository);
+    }
+
+    @AfterEach
+    void cleanup() {
+        outboxRepository.deleteAll();
+        kafkaTemplate.destroy();
+    }
+
+    @Test
+    void testRelayPublishesBatchesInOrderAndDrainsOutbox() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setRoles(List.of("ROLE_USER"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.record(UserOutboxEvent.Type.USER_CREATED, user);
+            user.setRoles(List.of("ROLE_USER", "ROLE_ADMIN"));
+            outbox.record(UserOutboxEvent.Type.ROLES_CHANGED, user);
+            outbox.record(UserOutboxEvent.Type.USER_DELETED, user);
+        });
+
+        UserEventRelay relay = new UserEventRelay(outboxRepository, kafkaTemplate, transactionTemplate,
+                objectMapper, new SimpleMeterRegistry(), TOPIC, 2, 10_000, 20, 500);
+        relay.relay();
+
+        assertEquals(0, outboxRepository.count());
+
+        List<ConsumerRecord<String, String>> received = consume(3);
+        List<String> types = new ArrayList<>();
+        for (ConsumerRecord<String, String> record : received) {
+            assertEquals("1", record.key());
+            types.add(objectMapper.readTree(record.value()).get("type").asText());
+        }
+        assertEquals(List.of("USER_CREATED", "ROLES_CHANGED", "USER_DELETED"), types);
+
+        JsonNode rolesChanged = objectMapper.readTree(received.get(1).value());
+        assertEquals(2, rolesChanged.get("roles").size());
+    }
+
+    @Test
+    void testRelayStopsAfterMaxBatchesPerRun() {
+        User user = new User();
+        user.setId(2L);
+        user.setUsername("bob");
+        user.setEmail("bob@example.com");
+        user.setRoles(List.of("ROLE_USER"));
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.record(UserOutboxEvent.Type.USER_CREATED, user);
+            outbox.record(UserOutboxEvent.Type.ROLES_CHANGED, user);
+            outbox.record(UserOutboxEvent.Type.USER_DELETED, user);
+        });
+
+        UserEventRelay relay = new UserEventRelay(outboxRepository, kafkaTemplate, transactionTemplate,
+                objectMapper, new SimpleMeterRegistry(), CAPPED_TOPIC, 1, 10_000, 2, 500);
+
+        relay.relay();
+        assertEquals(1, outboxRepository.count());
+
+        relay.relay();
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private List<ConsumerRecord<String, String>> consume(int expected) {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("user-events-test", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<ConsumerRecord<String, String>> received = new ArrayList<>();
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received.size() < expected && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(2));
+                records.forEach(received::add);
+            }
+        }
+        return received;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.payload.UserImportResult;
+import com.example.authservice.repository.AuthRepository;
+import com.example.authservice.utils.OffloadingPasswordEncoder;
+import com.example.authservice.utils.PasswordHashingExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// На H2 нет pg_get_serial_sequence, поэтому id выдаёт переопределённый allocateIds
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AuthRepository authRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> allocations = new ArrayList<>();
+    private JdbcTemplate jdbc;
+    private PasswordHashingExecutor hashingExecutor;
+    private UserImportService importService;
+
+    @BeforeEach
+    void setup() {
+        jdbc = new JdbcTemplate(dataSource);
+        hashingExecutor = new PasswordHashingExecutor(new SimpleMeterRegistry(), 2, 64, 1);
+        importService = importService(new AtomicLong(1000));
+    }
+
+    @AfterEach
+    void cleanup() {
+        hashingExecutor.shutdown();
+        jdbc.update("delete from user_outbox");
+        jdbc.update("delete from balance_ledger");
+        jdbc.update("delete from user_balances");
+        jdbc.update("delete from user_roles");
+        jdbc.update("delete from users");
+    }
+
+    @Test
+    void testMixedBodyReportsEveryRow() throws IOException {
+        User existing = new User("taken", "x");
+        existing.setEmail("taken@example.com");
+        authRepository.save(existing);
+
+        List<UserImportResult> results = importUsers("""
+                {"username":"alice","password":"secret","email":"alice@example.com","balance":12.50}
+                {"username":"taken","password":"secret","email":"other@example.com"}
+
+                {"username":"bob","password":"secret"}
+                not json
+                {"username":"carol","password":"secret","email":"carol@example.com"}
+                {"username":"carol","password":"secret","email":"carol2@example.com"}
+                {"username":"dave","password":"secret","email":"taken@example.com"}
+                {"username":"erin","password":"secret","email":"erin@example.com","balance":1.005}
+                """);
+
+        assertEquals(8, results.size());
+        assertResult(results.get(0), 1, "alice", UserImportResult.Status.CREATED);
+        assertResult(results.get(1), 2, "taken", UserImportResult.Status.CONFLICT);
+        // Пустая строка пропускается, но нумерация строк сохраняется
+        assertResult(results.get(2), 4, "bob", UserImportResult.Status.INVALID);
+        assertResult(results.get(3), 5, null, UserImportResult.Status.INVALID);
+        assertResult(results.get(4), 6, "carol", UserImportResult.Status.CREATED);
+        assertResult(results.get(5), 7, "carol", UserImportResult.Status.CONFLICT);
+        assertResult(results.get(6), 8, "dave", UserImportResult.Status.CONFLICT);
+        assertResult(results.get(7), 9, "erin", UserImportResult.Status.INVALID);
+
+        assertNotNull(results.get(0).getId());
+        assertNull(results.get(1).getId());
+        assertEquals("Некорректный JSON", results.get(3).getError());
+        assertEquals("Пользователь с такой электронной почтой уже существует.", results.get(6).getError());
+    }
+
+    @Test
+    void testCreatedRowsAreWrittenToAllTables() throws IOException {
+        List<UserImportResult> results = importUsers("""
+                {"username":"alice","password":"secret","email":"alice@example.com","balance":12.50}
+                {"username":"bob","password":"secret","email":"bob@example.com"}
+                """);
+        long alice = results.get(0).getId();
+        long bob = results.get(1).getId();
+
+        Map<String, Object> user = jdbc.queryForMap("select username, password, email from users where id = ?", alice);
+        assertEquals("alice", user.get("USERNAME"));
+        assertEquals("encoded:secret", user.get("PASSWORD"));
+        assertEquals("alice@example.com", user.get("EMAIL"));
+
+        assertEquals(List.of("ROLE_USER"),
+                jdbc.queryForList("select role from user_roles where user_id = ?", String.class, alice));
+        assertEquals(1250L, jdbc.queryForObject("select amount_minor from user_balances where user_id = ?", Long.class, alice));
+        assertEquals(0L, jdbc.queryForObject("select amount_minor from user_balances where user_id = ?", Long.class, bob));
+        // Запись в журнале только для ненулевого начального баланса
+        assertEquals(List.of(1250L),
+                jdbc.queryForList("select amount_minor from balance_ledger where reference = 'opening'", Long.class));
+
+        List<Map<String, Object>> events = jdbc.queryForList(
+                "select type, user_id, username, email, roles from user_outbox order by user_id");
+        assertEquals(2, events.size());
+        assertEquals("USER_CREATED", events.get(0).get("TYPE"));
+        assertEquals(alice, ((Number) events.get(0).get("USER_ID")).longValue());
+        assertEquals("alice", events.get(0).get("USERNAME"));
+        assertEquals("alice@example.com", events.get(0).get("EMAIL"));
+        assertEquals("ROLE_USER", events.get(0).get("ROLES"));
+        assertEquals(bob, ((Number) events.get(1).get("USER_ID")).longValue());
+    }
+
+    @Test
+    void testDuplicateInLaterChunkIsCaughtByDatabaseCheck() throws IOException {
+        // Пачки по две строки: alice во второй пачке находится уже запросом к таблице users
+        List<UserImportResult> results = importUsers("""
+                {"username":"alice","password":"secret","email":"alice@example.com"}
+                {"username":"bob","password":"secret","email":"bob@example.com"}
+                {"username":"carol","password":"secret","email":"carol@example.com"}
+                {"username":"alice","password":"secret","email":"alice2@example.com"}
+                {"username":"dave","password":"secret","email":"bob@example.com"}
+                """);
+
+        assertEquals(List.of(UserImportResult.Status.CREATED, UserImportResult.Status.CREATED,
+                        UserImportResult.Status.CREATED, UserImportResult.Status.CONFLICT,
+                        UserImportResult.Status.CONFLICT),
+                results.stream().map(UserImportResult::getStatus).toList());
+        // id выделяются только под принятые строки каждой пачки; последняя пачка целиком отклонена
+        assertEquals(List.of(2, 1), allocations);
+        assertEquals(3, jdbc.queryForObject("select count(*) from users", Integer.class));
+        assertEquals(3, jdbc.queryForObject("select count(*) from user_outbox", Integer.class));
+    }
+
+    @Test
+    void testFailedChunkDoesNotAffectOthers() throws IOException {
+        // id 1003 уже занят строкой в обход последовательности: вторая пачка (1003, 1004) откатывается целиком
+        jdbc.update("insert into users (id, username, password, email) values (1003, 'ghost', 'x', 'ghost@example.com')");
+
+        List<UserImportResult> results = importUsers("""
+                {"username":"alice","password":"secret","email":"alice@example.com"}
+                {"username":"bob","password":"secret","email":"bob@example.com"}
+                {"username":"carol","password":"secret","email":"carol@example.com"}
+                {"username":"dave","password":"secret","email":"dave@example.com"}
+                """);
+
+        assertEquals(List.of(UserImportResult.Status.CREATED, UserImportResult.Status.CREATED,
+                        UserImportResult.Status.FAILED, UserImportResult.Status.FAILED),
+                results.stream().map(UserImportResult::getStatus).toList());
+        assertEquals(List.of("alice", "bob", "ghost"),
+                jdbc.queryForList("select username from users order by id", String.class));
+        assertEquals(2, jdbc.queryForObject("select count(*) from user_roles", Integer.class));
+        assertEquals(2, jdbc.queryForObject("select count(*) from user_balances", Integer.class));
+        assertEquals(2, jdbc.queryForObject("select count(*) from user_outbox", Integer.class));
+    }
+
+    private UserImportService importService(AtomicLong sequence) {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "encoded:" + invocation.getArgument(0));
+        return new UserImportService(new NamedParameterJdbcTemplate(dataSource),
+                new TransactionTemplate(transactionManager),
+                new OffloadingPasswordEncoder(passwordEncoder, hashingExecutor), objectMapper, 2, 1) {
+            @Override
+            protected List<Long> allocateIds(int count) {
+                allocations.add(count);
+                List<Long> ids = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    ids.add(sequence.incrementAndGet());
+                }
+                return ids;
+            }
+        };
+    }
+
+    private List<UserImportResult> importUsers(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        importService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        List<UserImportResult> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, UserImportResult.class));
+        }
+        return results;
+    }
+
+    private static void assertResult(UserImportResult result, int line, String username, UserImportResult.Status status) {
+        assertEquals(line, result.getLine());
+        assertEquals(username, result.getUsername());
+        assertEquals(status, result.getStatus());
+    }
+}
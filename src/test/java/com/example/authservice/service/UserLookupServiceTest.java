@@ -0,0 +1,103 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.exceptions.LookupBatchTooLargeException;
+import com.example.authservice.payload.UserLookupResponse;
+import com.example.authservice.repository.AuthRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserLookupServiceTest {
+
+    @Autowired
+    private AuthRepository authRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserLookupService lookupService;
+    private Statistics statistics;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        for (int i = 0; i < 5; i++) {
+            User user = new User("user-" + i, "encoded");
+            user.setEmail("user-" + i + "@example.com");
+            user.setRoles(List.of("ROLE_USER"));
+            ids.add(authRepository.save(user).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        lookupService = new UserLookupService(authRepository, new SimpleMeterRegistry(), 100, 60, 10);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testBatchIsOneQueryAndDeduplicated() {
+        UserLookupResponse response = lookupService.lookup(
+                List.of(ids.get(0), ids.get(1), ids.get(0), ids.get(2), -1L), null);
+
+        assertEquals(3, response.byId().size());
+        assertEquals("user-1", response.byId().get(ids.get(1)).getUsername());
+        assertFalse(response.byId().containsKey(-1L));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testCachedIdsAreNotQueriedAgain() {
+        lookupService.lookup(List.of(ids.get(0), ids.get(1)), null);
+        lookupService.getById(ids.get(2));
+        statistics.clear();
+
+        UserLookupResponse response = lookupService.lookup(List.of(ids.get(0), ids.get(1), ids.get(2), ids.get(3)), null);
+
+        assertEquals(4, response.byId().size());
+        // Из БД дочитывается только ids[3]
+        assertEquals(1, statistics.getPrepareStatementCount());
+        statistics.clear();
+        assertTrue(lookupService.getById(ids.get(3)).isPresent());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUsernamesResolveInOneQueryAndWarmIdCache() {
+        UserLookupResponse response = lookupService.lookup(null, List.of("user-3", "user-4", "missing"));
+
+        assertEquals(2, response.byUsername().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        statistics.clear();
+        assertTrue(lookupService.getById(ids.get(4)).isPresent());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testRejectsOversizedBatch() {
+        List<Long> tooMany = new ArrayList<>();
+        for (long i = 0; i < 11; i++) {
+            tooMany.add(i);
+        }
+        assertThrows(LookupBatchTooLargeException.class, () -> lookupService.lookup(tooMany, null));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.authservice.service;
+
+import com.example.authservice.entity.User;
+import com.example.authservice.payload.UserPage;
+import com.example.authservice.payload.UserSummary;
+import com.example.authservice.repository.AuthRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserQueryServiceTest {
+
+    @Autowired
+    private AuthRepository authRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserQueryService queryService;
+    private Statistics statistics;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        ids.add(authRepository.save(newUser("alice", List.of("ROLE_USER", "ROLE_ADMIN"))).getId());
+        ids.add(authRepository.save(newUser("bob", List.of("ROLE_USER"))).getId());
+        ids.add(authRepository.save(newUser("carol", List.of())).getId());
+        ids.add(authRepository.save(newUser("dave", List.of("ROLE_USER"))).getId());
+        ids.add(authRepository.save(newUser("erin", List.of("ROLE_USER"))).getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        queryService = new UserQueryService(authRepository, objectMapper);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testCursorWalksAllPagesIncludingLastPartialOne() {
+        UserPage first = queryService.getPage(0, 2);
+        UserPage second = queryService.getPage(first.getNextAfterId(), 2);
+        UserPage last = queryService.getPage(second.getNextAfterId(), 2);
+
+        assertEquals(List.of("alice", "bob"), usernames(first));
+        assertEquals(ids.get(1), first.getNextAfterId());
+        assertEquals(List.of("carol", "dave"), usernames(second));
+        assertEquals(ids.get(3), second.getNextAfterId());
+        assertEquals(List.of("erin"), usernames(last));
+        assertNull(last.getNextAfterId());
+    }
+
+    @Test
+    void testFullLastPageIsFollowedByEmptyPage() {
+        UserPage full = queryService.getPage(ids.get(2), 2);
+        UserPage empty = queryService.getPage(full.getNextAfterId(), 2);
+
+        assertEquals(List.of("dave", "erin"), usernames(full));
+        assertEquals(ids.get(4), full.getNextAfterId());
+        assertEquals(List.of(), empty.getItems());
+        assertNull(empty.getNextAfterId());
+    }
+
+    @Test
+    void testRolesAreLoadedInOneQueryPerPage() {
+        UserPage page = queryService.getPage(0, 5);
+
+        // Страница + одна пачка user_roles на всех её пользователей
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), Set.copyOf(page.getItems().get(0).getRoles()));
+        assertEquals(List.of(), page.getItems().get(2).getRoles());
+        assertEquals(List.of("ROLE_USER"), page.getItems().get(4).getRoles());
+    }
+
+    @Test
+    void testEmptyPageSkipsRoleQuery() {
+        UserPage page = queryService.getPage(ids.get(4), 2);
+
+        assertEquals(List.of(), page.getItems());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testStreamedUsersAreValidJsonWithoutPasswords() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        queryService.writeAllUsers(out);
+
+        JsonNode users = objectMapper.readTree(out.toByteArray());
+        assertTrue(users.isArray());
+        assertEquals(5, users.size());
+        for (JsonNode user : users) {
+            assertFalse(user.has("password"));
+        }
+        assertFalse(out.toString().contains("encoded-"));
+        assertEquals("alice", users.get(0).get("username").asText());
+        assertEquals(ids.get(0).longValue(), users.get(0).get("id").asLong());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"),
+                Set.of(users.get(0).get("roles").get(0).asText(), users.get(0).get("roles").get(1).asText()));
+        // Пользователь без ролей тоже попадает в выгрузку
+        assertEquals("carol", users.get(2).get("username").asText());
+        assertEquals(0, users.get(2).get("roles").size());
+        assertEquals("erin@example.com", users.get(4).get("email").asText());
+    }
+
+    @Test
+    void testStreamOfNoUsersIsEmptyArray() throws Exception {
+        authRepository.deleteAll();
+        entityManager.flush();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        queryService.writeAllUsers(out);
+
+        assertEquals("[]", out.toString());
+    }
+
+    private static List<String> usernames(UserPage page) {
+        return page.getItems().stream().map(UserSummary::getUsername).toList();
+    }
+
+    private static User newUser(String username, List<String> roles) {
+        User user = new User(username, "encoded-" + username);
+        user.setEmail(username + "@example.com");
+        user.setRoles(roles);
+        return user;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.authservice.utils;
+
+import com.example.authservice.repository.SigningKeyStore;
+import com.example.authservice.repository.StoredSigningKey;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactJwtEncoderTest {
+
+    private static final String SECRET = "your-very-long-secret-key-with-at-least-64-characters-1234567890abcdef";
+
+    private JwtKeyManager keyManager;
+    private JwtVerifier verifier;
+    private CompactJwtEncoder encoder;
+
+    private void setup(String algorithm) {
+        keyManager = new JwtKeyManager(new ListSigningKeyStore(),
+                Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), algorithm, 24, 3, "", 900, 60_000);
+        keyManager.init();
+        verifier = new JwtVerifier(Jwts.parserBuilder().setSigningKeyResolver(keyManager).build(), 100);
+        encoder = new CompactJwtEncoder(keyManager);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ES256", "HS256", "HS512"})
+    void testCompactTokenIsVerifiedByJjwt(String algorithm) {
+        setup(algorithm);
+        long now = System.currentTimeMillis() / 1000;
+        String tokenId = CompactJwtEncoder.newTokenId();
+
+        String token = encoder.encode("Алиса \"quoted\" 😀", tokenId,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")),
+                7, now, now + 900);
+        VerifiedToken verified = verifier.verify(token);
+
+        assertEquals(22, tokenId.length());
+        assertEquals(tokenId, verified.id());
+        assertEquals("Алиса \"quoted\" 😀", verified.subject());
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), verified.roles());
+        assertEquals(7L, verified.generation());
+        assertEquals(now + 900, verified.expiresAt().getEpochSecond());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ES256", "HS512"})
+    void testLegacyTokenIsStillVerified(String algorithm) {
+        setup(algorithm);
+        Date now = new Date();
+        Claims claims = Jwts.claims().setSubject("alice");
+        claims.put("roles", "ROLE_USER,ROLE_ADMIN");
+        claims.put("gen", 3L);
+        String token = keyManager.signWithCurrentKey(Jwts.builder()
+                .setClaims(claims)
+                .setId("legacy-id")
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 900_000))).compact();
+
+        VerifiedToken verified = verifier.verify(token);
+
+        assertEquals("legacy-id", verified.id());
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), verified.roles());
+        assertEquals(3L, verified.generation());
+    }
+
+    @Test
+    void testUnknownRoleFallsBackToRolesString() {
+        setup("HS256");
+        long now = System.currentTimeMillis() / 1000;
+
+        String token = encoder.encode("alice", CompactJwtEncoder.newTokenId(),
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_AUDITOR")),
+                0, now, now + 900);
+
+        assertEquals(List.of("ROLE_USER", "ROLE_AUDITOR"), verifier.verify(token).roles());
+    }
+
+    private static final class ListSigningKeyStore implements SigningKeyStore {
+        private final List<StoredSigningKey> keys = new ArrayList<>();
+        private Instant es256Since;
+
+        @Override
+        public List<StoredSigningKey> findAll() {
+            return List.copyOf(keys);
+        }
+
+        @Override
+        public void add(StoredSigningKey key) {
+            keys.add(key);
+        }
+
+        @Override
+        public void remove(String kid) {
+            keys.removeIf(key -> key.kid().equals(kid));
+        }
+
+        @Override
+        public boolean tryLockRotation(Duration ttl) {
+            return true;
+        }
+
+        @Override
+        public Instant recordEs256Since(Instant now) {
+            if (es256Since == null) {
+                es256Since = now;
+            }
+            return es256Since;
+        }
+    }
+}
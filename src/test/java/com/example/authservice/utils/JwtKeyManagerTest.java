@@ -0,0 +1,207 @@
+package com.example.authservice.utils;
+
+import com.example.authservice.repository.SigningKeyStore;
+import com.example.authservice.repository.StoredSigningKey;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtKeyManagerTest {
+
+    private static final SecretKey HMAC_KEY = Keys.hmacShaKeyFor(
+            "your-very-long-secret-key-with-at-least-64-characters-1234567890abcdef".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void testHmacTokenAcceptedBeforeDeadline() {
+        JwtKeyManager keyManager = keyManager("ES256", Instant.now().plusSeconds(60).toString());
+
+        assertEquals("alice", subject(keyManager, hmacToken(SignatureAlgorithm.HS512)));
+        assertEquals("alice", subject(keyManager, hmacToken(SignatureAlgorithm.HS256)));
+    }
+
+    @Test
+    void testHmacTokenRejectedAfterDeadline() {
+        JwtKeyManager keyManager = keyManager("ES256", Instant.now().minusSeconds(1).toString());
+
+        assertThrows(SignatureException.class, () -> subject(keyManager, hmacToken(SignatureAlgorithm.HS512)));
+        assertThrows(SignatureException.class, () -> subject(keyManager, hmacToken(SignatureAlgorithm.HS256)));
+        // ES256 по-прежнему проверяется
+        String token = keyManager.signWithCurrentKey(Jwts.builder().setSubject("alice")).compact();
+        assertEquals("alice", subject(keyManager, token));
+    }
+
+    @Test
+    void testDefaultDeadlineIsAccessTokenLifetime() {
+        JwtKeyManager keyManager = new JwtKeyManager(new ListSigningKeyStore(), HMAC_KEY, "ES256", 24, 3, "", 0, 60_000);
+        keyManager.init();
+
+        assertThrows(SignatureException.class, () -> subject(keyManager, hmacToken(SignatureAlgorithm.HS512)));
+    }
+
+    @Test
+    void testHmacAlgorithmIgnoresDeadline() {
+        JwtKeyManager keyManager = keyManager("HS512", Instant.now().minusSeconds(1).toString());
+
+        assertEquals("alice", subject(keyManager, hmacToken(SignatureAlgorithm.HS512)));
+    }
+
+    @Test
+    void testNextKeyIsPublishedBeforeItSigns() {
+        ListSigningKeyStore store = new ListSigningKeyStore();
+        // До конца rotation-interval меньше publishLead (5 мин max-age + 1 мин обновления)
+        store.add(ecKey("old", Instant.now().minus(Duration.ofHours(24)).plus(Duration.ofMinutes(3))));
+        JwtKeyManager keyManager = esKeyManager(store);
+
+        assertEquals(2, ((List<?>) keyManager.jwks().get("keys")).size());
+        assertEquals("old", signingKid(keyManager));
+    }
+
+    @Test
+    void testPublishedKeySignsAfterLead() {
+        ListSigningKeyStore store = new ListSigningKeyStore();
+        store.add(ecKey("old", Instant.now().minus(Duration.ofHours(30))));
+        store.add(ecKey("next", Instant.now().minus(Duration.ofMinutes(7))));
+        JwtKeyManager keyManager = esKeyManager(store);
+
+        assertEquals("next", signingKid(keyManager));
+        assertEquals(2, store.findAll().size());
+    }
+
+    @Test
+    void testFirstKeySignsImmediately() {
+        ListSigningKeyStore store = new ListSigningKeyStore();
+        JwtKeyManager keyManager = esKeyManager(store);
+
+        assertEquals(store.findAll().get(0).kid(), signingKid(keyManager));
+    }
+
+    @Test
+    void testDefaultDeadlineCountsFromFirstCutoverNotFromRestart() {
+        ListSigningKeyStore store = new ListSigningKeyStore();
+        // Другой узел (или этот же до перезапуска) перешёл на ES256 час назад
+        store.recordEs256Since(Instant.now().minus(Duration.ofHours(1)));
+
+        JwtKeyManager keyManager = esKeyManager(store);
+
+        assertThrows(SignatureException.class, () -> subject(keyManager, hmacToken(SignatureAlgorithm.HS512)));
+    }
+
+    @Test
+    void testNodeWithoutRotationLockWaitsForWinnerKey() {
+        StoredSigningKey winnerKey = ecKey("winner", Instant.now());
+        ListSigningKeyStore store = new ListSigningKeyStore() {
+            private int reads;
+
+            @Override
+            public List<StoredSigningKey> findAll() {
+                // Узел, взявший блокировку, записывает ключ, пока этот узел уже ждёт
+                if (++reads == 3) {
+                    add(winnerKey);
+                }
+                return super.findAll();
+            }
+
+            @Override
+            public boolean tryLockRotation(Duration ttl) {
+                return false;
+            }
+        };
+
+        JwtKeyManager keyManager = esKeyManager(store);
+
+        assertEquals("winner", signingKid(keyManager));
+    }
+
+    private static JwtKeyManager esKeyManager(ListSigningKeyStore store) {
+        JwtKeyManager keyManager = new JwtKeyManager(store, HMAC_KEY, "ES256", 24, 3, "", 900, 60_000);
+        keyManager.init();
+        return keyManager;
+    }
+
+    private static String signingKid(JwtKeyManager keyManager) {
+        String token = keyManager.signWithCurrentKey(Jwts.builder().setSubject("alice")).compact();
+        return Jwts.parserBuilder().setSigningKeyResolver(keyManager).build()
+                .parseClaimsJws(token).getHeader().getKeyId();
+    }
+
+    private static StoredSigningKey ecKey(String kid, Instant createdAt) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            return new StoredSigningKey(kid, createdAt, pair.getPrivate().getEncoded(), pair.getPublic().getEncoded());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JwtKeyManager keyManager(String algorithm, String hmacAcceptedUntil) {
+        JwtKeyManager keyManager = new JwtKeyManager(new ListSigningKeyStore(), HMAC_KEY, algorithm, 24, 3,
+                hmacAcceptedUntil, 900, 60_000);
+        keyManager.init();
+        return keyManager;
+    }
+
+    private static String hmacToken(SignatureAlgorithm algorithm) {
+        return Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(HMAC_KEY, algorithm)
+                .compact();
+    }
+
+    private static String subject(JwtKeyManager keyManager, String token) {
+        return Jwts.parserBuilder().setSigningKeyResolver(keyManager).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    private static class ListSigningKeyStore implements SigningKeyStore {
+        private final List<StoredSigningKey> keys = new ArrayList<>();
+        private Instant es256Since;
+
+        @Override
+        public List<StoredSigningKey> findAll() {
+            return List.copyOf(keys);
+        }
+
+        @Override
+        public void add(StoredSigningKey key) {
+            keys.add(key);
+        }
+
+        @Override
+        public void remove(String kid) {
+            keys.removeIf(key -> key.kid().equals(kid));
+        }
+
+        @Override
+        public boolean tryLockRotation(Duration ttl) {
+            return true;
+        }
+
+        @Override
+        public Instant recordEs256Since(Instant now) {
+            if (es256Since == null) {
+                es256Since = now;
+            }
+            return es256Since;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.authservice.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Две базы H2 вместо primary и реплики Postgres; отставание реплики задаётся таблицей replica_lag
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT ms FROM replica_lag";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcDataSource primary;
+    private JdbcDataSource replica;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE replica_lag (ms BIGINT)");
+        new JdbcTemplate(replica).execute("INSERT INTO replica_lag VALUES (0)");
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    @Test
+    void testReadOnlyTransactionGoesToReplica() {
+        routing = routing(Map.of("replica-1", replica));
+        routing.probe();
+
+        assertEquals("replica", read(true));
+        assertEquals("primary", read(false));
+        assertEquals(1, reads("replica", "none"));
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        routing = routing(Map.of("replica-1", replica));
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET ms = 5000");
+        routing.probe();
+
+        assertEquals("primary", read(true));
+        assertEquals(1, reads("primary", "lag"));
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET ms = 10");
+        routing.probe();
+
+        assertEquals("replica", read(true));
+    }
+
+    @Test
+    void testReadYourWritesUsesPrimary() {
+        routing = routing(Map.of("replica-1", replica));
+        routing.probe();
+        ReadYourWrites readYourWrites = new ReadYourWrites(true, 5, 100);
+        readYourWrites.recordWrite(42L, "alice");
+
+        assertEquals("primary", readYourWrites.readByUsername("alice", () -> read(true)));
+        assertEquals("primary", readYourWrites.readById(42L, () -> read(true)));
+        assertEquals("replica", readYourWrites.readByUsername("bob", () -> read(true)));
+        assertEquals(2, reads("primary", "read_your_writes"));
+    }
+
+    @Test
+    void testUnreachableReplicaIsSkipped() {
+        JdbcDataSource unreachable = new JdbcDataSource();
+        unreachable.setURL("jdbc:h2:tcp://localhost:1/unreachable");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", unreachable);
+        replicas.put("replica-2", replica);
+        routing = routing(replicas);
+        routing.probe();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica", read(true));
+        }
+    }
+
+    @Test
+    void testNoProbeYetMeansPrimary() {
+        // Ни одного опроса: реплика ещё не считается доступной
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica), meterRegistry,
+                1000, 60_000, "SELECT 1 FROM missing_table");
+
+        assertEquals("primary", read(true));
+    }
+
+    private ReplicaRoutingDataSource routing(Map<String, DataSource> replicas) {
+        return new ReplicaRoutingDataSource(primary, replicas, meterRegistry, 1000, 60_000, LAG_QUERY);
+    }
+
+    // Та же связка, что в DataSourceConfig: выбор источника при первом запросе транзакции
+    private String read(boolean readOnly) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(routing);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> new JdbcTemplate(dataSource)
+                .queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private double reads(String target, String fallback) {
+        return meterRegistry.get("datasource.reads").tag("target", target).tag("fallback", fallback).counter().count();
+    }
+
+    private static JdbcDataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE whoami (name VARCHAR(16))");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+}